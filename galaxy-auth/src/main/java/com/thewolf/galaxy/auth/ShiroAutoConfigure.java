@@ -15,15 +15,19 @@
  */
 package com.thewolf.galaxy.auth;
 
+import com.thewolf.galaxy.auth.config.AuthActuatorConfiguration;
 import com.thewolf.galaxy.auth.config.AuthSwaggerConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroApiKeyConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroAsyncConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroAuditConfiguration;
 import com.thewolf.galaxy.auth.config.ShiroAnnotationsConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroCacheConfiguration;
 import com.thewolf.galaxy.auth.config.ShiroJwtConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroLoginThrottleConfiguration;
+import com.thewolf.galaxy.auth.config.ShiroPasswordConfiguration;
 import com.thewolf.galaxy.auth.config.ShiroProperties;
 import com.thewolf.galaxy.auth.config.ShiroWebMvcConfiguration;
-import org.apache.shiro.authc.credential.DefaultPasswordService;
-import org.apache.shiro.authc.credential.PasswordService;
 import org.apache.shiro.spring.LifecycleBeanPostProcessor;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -37,16 +41,12 @@ import org.springframework.context.annotation.Import;
 @Configuration
 @EnableConfigurationProperties(ShiroProperties.class)
 @ConditionalOnProperty(value = "shiro.enabled", havingValue = "true")
-@Import({ShiroJwtConfiguration.class, ShiroAnnotationsConfiguration.class,
-  ShiroWebMvcConfiguration.class, AuthSwaggerConfiguration.class})
+@Import({ShiroJwtConfiguration.class, ShiroAnnotationsConfiguration.class, ShiroCacheConfiguration.class,
+  ShiroPasswordConfiguration.class, ShiroLoginThrottleConfiguration.class, ShiroApiKeyConfiguration.class,
+  ShiroAsyncConfiguration.class, ShiroAuditConfiguration.class, ShiroWebMvcConfiguration.class,
+  AuthSwaggerConfiguration.class, AuthActuatorConfiguration.class})
 public class ShiroAutoConfigure {
 
-  @Bean
-  @ConditionalOnMissingBean(PasswordService.class)
-  public PasswordService passwordService() {
-    return new DefaultPasswordService();
-  }
-
   @Bean
   public LifecycleBeanPostProcessor lifecycleBeanPostProcessor() {
     return new LifecycleBeanPostProcessor();
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.actuate;
+
+import com.google.common.collect.Maps;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and failure statistics of the stages of the shiro pipeline, shared by filters and realms which are not
+ * necessarily spring beans. Recording is two {@code System.nanoTime()} calls plus a few {@code LongAdder} increments.
+ */
+public final class AuthMetrics {
+
+  private static final AuthMetrics SHARED = new AuthMetrics();
+
+  private final Map<Stage, StageMetrics> stages = Maps.newEnumMap(Stage.class);
+
+  private AuthMetrics() {
+    for (Stage stage : Stage.values()) {
+      stages.put(stage, new StageMetrics());
+    }
+  }
+
+  /**
+   * Get shared instance.
+   *
+   * @return shared {@code AuthMetrics}.
+   */
+  public static AuthMetrics shared() {
+    return SHARED;
+  }
+
+  /**
+   * Get metrics of stage.
+   *
+   * @param stage stage.
+   * @return metrics of stage.
+   */
+  public StageMetrics get(Stage stage) {
+    return stages.get(stage);
+  }
+
+  /**
+   * Record stage latency since start.
+   *
+   * @param stage      stage.
+   * @param startNanos {@code System.nanoTime()} at stage start.
+   */
+  public void record(Stage stage, long startNanos) {
+    stages.get(stage).getLatency().record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Record stage failure.
+   *
+   * @param stage stage.
+   * @param cause failure cause.
+   */
+  public void fail(Stage stage, FailureCause cause) {
+    stages.get(stage).failures.get(cause).increment();
+  }
+
+  /**
+   * Stages of shiro pipeline.
+   */
+  public enum Stage {
+    /**
+     * Extracting and verifying token in authenticating filters.
+     */
+    TOKEN,
+    /**
+     * Realm authentication.
+     */
+    AUTHENTICATION,
+    /**
+     * Realm authorization info loading, cache misses only.
+     */
+    AUTHORIZATION,
+    /**
+     * Realm string permission checks.
+     */
+    PERMISSION_CHECK,
+    /**
+     * Permission and role authorization filters.
+     */
+    AUTHORIZATION_FILTER;
+
+    /**
+     * Get metric name segment.
+     *
+     * @return lower case name with dashes.
+     */
+    public String metricName() {
+      return name().toLowerCase().replace('_', '-');
+    }
+  }
+
+  /**
+   * Failure causes.
+   */
+  public enum FailureCause {
+    MISSING,
+    EXPIRED,
+    MALFORMED,
+    SIGNATURE,
+    UNKNOWN_ACCOUNT,
+    DISABLED,
+    VALID_AFTER,
+    INVALID_API_KEY,
+    UNAVAILABLE,
+    DENIED;
+
+    /**
+     * Get metric name segment.
+     *
+     * @return lower case name with dashes.
+     */
+    public String metricName() {
+      return name().toLowerCase().replace('_', '-');
+    }
+  }
+
+  /**
+   * Metrics of a stage.
+   */
+  @Getter
+  public static class StageMetrics {
+
+    private final LatencyRecorder latency = new LatencyRecorder();
+
+    private final Map<FailureCause, LongAdder> failures = Maps.newEnumMap(FailureCause.class);
+
+    StageMetrics() {
+      for (FailureCause cause : FailureCause.values()) {
+        failures.put(cause, new LongAdder());
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.actuate;
+
+import com.google.common.collect.Lists;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.service.JwtTokenService;
+import com.thewolf.galaxy.auth.service.LoginThrottle;
+import com.thewolf.galaxy.auth.service.TokenService;
+import com.thewolf.galaxy.auth.service.VerifiedTokenCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@code PublicMetrics} exposing galaxy auth statistics through actuator metrics endpoint.
+ */
+public class AuthPublicMetrics implements PublicMetrics {
+
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private final ObjectProvider<TokenService> tokenServiceProvider;
+
+  private final ObjectProvider<LoginThrottle> loginThrottleProvider;
+
+  private final ObjectProvider<AuthorizationAuditor> auditorProvider;
+
+  /**
+   * Constructor.
+   *
+   * @param tokenServiceProvider  provider of {@code TokenService}.
+   * @param loginThrottleProvider provider of {@code LoginThrottle}.
+   * @param auditorProvider       provider of {@code AuthorizationAuditor}.
+   */
+  public AuthPublicMetrics(ObjectProvider<TokenService> tokenServiceProvider,
+                           ObjectProvider<LoginThrottle> loginThrottleProvider,
+                           ObjectProvider<AuthorizationAuditor> auditorProvider) {
+    this.tokenServiceProvider = tokenServiceProvider;
+    this.loginThrottleProvider = loginThrottleProvider;
+    this.auditorProvider = auditorProvider;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    List<Metric<?>> metrics = Lists.newArrayList();
+    addVerifiedTokenCacheMetrics(metrics);
+    addLoginThrottleMetrics(metrics);
+    addStageMetrics(metrics);
+    addAuditMetrics(metrics);
+    return metrics;
+  }
+
+  /**
+   * Add latency and failure metrics of shiro pipeline stages, latencies are in milliseconds.
+   *
+   * @param metrics metric list.
+   */
+  protected void addStageMetrics(List<Metric<?>> metrics) {
+    AuthMetrics authMetrics = AuthMetrics.shared();
+    for (AuthMetrics.Stage stage : AuthMetrics.Stage.values()) {
+      String prefix = "auth.stage." + stage.metricName() + ".";
+      AuthMetrics.StageMetrics stageMetrics = authMetrics.get(stage);
+      LatencyRecorder latency = stageMetrics.getLatency();
+      metrics.add(new Metric<>(prefix + "count", latency.getCount()));
+      if (latency.getCount() > 0) {
+        metrics.add(new Metric<>(prefix + "latency.mean", latency.getMean() / NANOS_PER_MILLI));
+        metrics.add(new Metric<>(prefix + "latency.p50", latency.getValueAtPercentile(50) / NANOS_PER_MILLI));
+        metrics.add(new Metric<>(prefix + "latency.p99", latency.getValueAtPercentile(99) / NANOS_PER_MILLI));
+        metrics.add(new Metric<>(prefix + "latency.max", latency.getMax() / NANOS_PER_MILLI));
+      }
+      stageMetrics.getFailures().forEach((cause, count) -> {
+        long sum = count.sum();
+        if (sum > 0) {
+          metrics.add(new Metric<>(prefix + "failures." + cause.metricName(), sum));
+        }
+      });
+    }
+  }
+
+  /**
+   * Add metrics of {@code VerifiedTokenCache}.
+   *
+   * @param metrics metric list.
+   */
+  protected void addVerifiedTokenCacheMetrics(List<Metric<?>> metrics) {
+    TokenService tokenService = tokenServiceProvider.getIfAvailable();
+    if (!(tokenService instanceof JwtTokenService)) {
+      return;
+    }
+    VerifiedTokenCache cache = ((JwtTokenService) tokenService).getVerifiedTokenCache();
+    if (cache == null) {
+      return;
+    }
+    metrics.add(new Metric<>("auth.token.cache.size", cache.size()));
+    metrics.add(new Metric<>("auth.token.cache.hits", cache.hitCount()));
+    metrics.add(new Metric<>("auth.token.cache.misses", cache.missCount()));
+    metrics.add(new Metric<>("auth.token.cache.evictions", cache.evictionCount()));
+  }
+
+  /**
+   * Add metrics of {@code LoginThrottle}.
+   *
+   * @param metrics metric list.
+   */
+  protected void addLoginThrottleMetrics(List<Metric<?>> metrics) {
+    LoginThrottle loginThrottle = loginThrottleProvider.getIfAvailable();
+    if (loginThrottle == null) {
+      return;
+    }
+    metrics.add(new Metric<>("auth.login.throttled.address", loginThrottle.getAddressRejectionCount()));
+    metrics.add(new Metric<>("auth.login.throttled.username", loginThrottle.getUsernameRejectionCount()));
+  }
+
+  /**
+   * Add metrics of {@code AuthorizationAuditor}.
+   *
+   * @param metrics metric list.
+   */
+  protected void addAuditMetrics(List<Metric<?>> metrics) {
+    AuthorizationAuditor auditor = auditorProvider.getIfAvailable();
+    if (auditor == null) {
+      return;
+    }
+    metrics.add(new Metric<>("auth.audit.recorded", auditor.getRecordedCount()));
+    metrics.add(new Metric<>("auth.audit.dropped", auditor.getDroppedCount()));
+    metrics.add(new Metric<>("auth.audit.written", auditor.getWrittenCount()));
+    metrics.add(new Metric<>("auth.audit.failed", auditor.getFailedCount()));
+    metrics.add(new Metric<>("auth.audit.buffered", auditor.getBufferedCount()));
+  }
+}
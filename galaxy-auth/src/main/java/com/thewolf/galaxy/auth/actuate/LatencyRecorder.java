@@ -0,0 +1,143 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.actuate;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, each power of two is split into {@value #SUB_BUCKETS} buckets
+ * so recorded values are kept within 12.5% relative error, in the spirit of HdrHistogram. Values up to about
+ * 18 minutes in nanoseconds are tracked, larger values fall into the last bucket.
+ */
+public class LatencyRecorder {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_EXPONENT = 40;
+
+  private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Constructor.
+   */
+  public LatencyRecorder() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos latency in nanoseconds, negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    buckets[indexOf(Math.min(value, MAX_VALUE))].increment();
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Get number of recorded latencies.
+   *
+   * @return count.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Get mean latency.
+   *
+   * @return mean in nanoseconds, 0 while nothing recorded.
+   */
+  public double getMean() {
+    long n = count.sum();
+    return n > 0 ? (double) sum.sum() / n : 0;
+  }
+
+  /**
+   * Get maximum latency.
+   *
+   * @return maximum in nanoseconds.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get approximate latency at percentile, the upper bound of the bucket holding it.
+   *
+   * @param percentile percentile between 0 and 100.
+   * @return latency in nanoseconds, 0 while nothing recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long cumulative = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += counts[i];
+      if (cumulative >= target) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  private static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+}
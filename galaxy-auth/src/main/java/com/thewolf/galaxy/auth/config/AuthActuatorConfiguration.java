@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.actuate.AuthPublicMetrics;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.service.LoginThrottle;
+import com.thewolf.galaxy.auth.service.TokenService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Actuator configuration that exposes auth metrics while actuator present.
+ */
+@SuppressWarnings("JavadocMethod")
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+public class AuthActuatorConfiguration {
+
+  @Bean
+  public AuthPublicMetrics authPublicMetrics(ObjectProvider<TokenService> tokenServiceProvider,
+                                             ObjectProvider<LoginThrottle> loginThrottleProvider,
+                                             ObjectProvider<AuthorizationAuditor> auditorProvider) {
+    return new AuthPublicMetrics(tokenServiceProvider, loginThrottleProvider, auditorProvider);
+  }
+
+}
@@ -15,9 +15,12 @@
  */
 package com.thewolf.galaxy.auth.config;
 
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.shiro.spring.security.interceptor.AuditingAnnotationsAuthorizingMethodInterceptor;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.spring.security.interceptor.AuthorizationAttributeSourceAdvisor;
 import org.springframework.aop.framework.autoproxy.DefaultAdvisorAutoProxyCreator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -43,9 +46,14 @@ public class ShiroAnnotationsConfiguration {
   }
 
   @Bean
-  public AuthorizationAttributeSourceAdvisor authorizationAttributeSourceAdvisor(SecurityManager securityManager) {
+  public AuthorizationAttributeSourceAdvisor authorizationAttributeSourceAdvisor(
+    SecurityManager securityManager, ObjectProvider<AuthorizationAuditor> auditorProvider) {
     AuthorizationAttributeSourceAdvisor advisor = new AuthorizationAttributeSourceAdvisor();
     advisor.setSecurityManager(securityManager);
+    AuthorizationAuditor auditor = auditorProvider.getIfAvailable();
+    if (auditor != null) {
+      advisor.setAdvice(new AuditingAnnotationsAuthorizingMethodInterceptor(auditor));
+    }
     return advisor;
   }
 
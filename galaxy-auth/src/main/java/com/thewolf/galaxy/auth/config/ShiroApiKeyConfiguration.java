@@ -0,0 +1,66 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.service.ApiKeyIndex;
+import com.thewolf.galaxy.auth.support.ApiKeyStore;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * API key authentication configuration, requires an {@code ApiKeyStore} bean. Keys are accepted on chains using the
+ * {@code apiKey} filter.
+ */
+@SuppressWarnings("JavadocMethod")
+@ConditionalOnProperty(prefix = "shiro.api-key", value = "enabled", havingValue = "true")
+public class ShiroApiKeyConfiguration {
+
+  @Bean
+  @ConfigurationProperties("shiro.api-key")
+  public ApiKeyConfig apiKeyConfig() {
+    return new ApiKeyConfig();
+  }
+
+  @Bean
+  public ApiKeyIndex apiKeyIndex(ApiKeyStore apiKeyStore, ApiKeyConfig apiKeyConfig) {
+    return new ApiKeyIndex(apiKeyStore, apiKeyConfig.getRefreshIntervalSecond(),
+      apiKeyConfig.getRefreshOverlapSecond());
+  }
+
+  /**
+   * API key configuration.
+   */
+  @Setter
+  @Getter
+  public static class ApiKeyConfig {
+
+    /**
+     * Interval of loading modified keys from {@code ApiKeyStore}, 0 disables refreshing.
+     */
+    private long refreshIntervalSecond = AuthConstants.API_KEY_REFRESH_INTERVAL_SECOND;
+
+    /**
+     * Keys modified up to this long before the latest modification seen are loaded again, so keys committed late
+     * with an earlier modification time are not missed. Must exceed the longest transaction modifying keys.
+     */
+    private long refreshOverlapSecond = AuthConstants.API_KEY_REFRESH_OVERLAP_SECOND;
+
+  }
+}
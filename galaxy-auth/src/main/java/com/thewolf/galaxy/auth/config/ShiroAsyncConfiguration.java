@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.support.SecurityContextTaskDecorator;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Async executor configuration, enables {@code @Async} methods, which run on {@code taskExecutor}. Tasks submitted to
+ * {@code taskExecutor} keep the security context of the submitting thread.
+ */
+@SuppressWarnings("JavadocMethod")
+@EnableAsync
+@ConditionalOnProperty(prefix = "shiro.async", value = "enabled", havingValue = "true")
+public class ShiroAsyncConfiguration {
+
+  @Bean
+  @ConfigurationProperties("shiro.async")
+  public AsyncConfig asyncConfig() {
+    return new AsyncConfig();
+  }
+
+  @Bean
+  public SecurityContextTaskDecorator securityContextTaskDecorator() {
+    return new SecurityContextTaskDecorator();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(name = "taskExecutor")
+  public ThreadPoolTaskExecutor taskExecutor(AsyncConfig asyncConfig,
+                                             SecurityContextTaskDecorator securityContextTaskDecorator) {
+    ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    taskExecutor.setThreadNamePrefix("async-");
+    taskExecutor.setCorePoolSize(asyncConfig.getCorePoolSize());
+    taskExecutor.setMaxPoolSize(asyncConfig.getMaxPoolSize());
+    taskExecutor.setQueueCapacity(asyncConfig.getQueueCapacity());
+    taskExecutor.setTaskDecorator(securityContextTaskDecorator);
+    return taskExecutor;
+  }
+
+  /**
+   * Async executor configuration.
+   */
+  @Setter
+  @Getter
+  public static class AsyncConfig {
+
+    private int corePoolSize = Runtime.getRuntime().availableProcessors();
+
+    private int maxPoolSize = Runtime.getRuntime().availableProcessors() * 4;
+
+    private int queueCapacity = 1000;
+
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.service.AuthorizationAuditSink;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.service.JdbcAuthorizationAuditSink;
+import com.thewolf.galaxy.auth.service.RollingFileAuthorizationAuditSink;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Authorization decision audit configuration, decisions of {@code perms} and {@code roles} filters and shiro
+ * annotations are written asynchronously to a jdbc table or rolling local files.
+ */
+@SuppressWarnings("JavadocMethod")
+@ConditionalOnProperty(prefix = "shiro.audit", value = "enabled", havingValue = "true")
+public class ShiroAuditConfiguration {
+
+  private static final long BYTES_PER_MB = 1024 * 1024;
+
+  @Bean
+  @ConfigurationProperties("shiro.audit")
+  public AuditConfig auditConfig() {
+    return new AuditConfig();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(AuthorizationAuditSink.class)
+  public AuthorizationAuditSink authorizationAuditSink(AuditConfig auditConfig,
+                                                       ObjectProvider<DataSource> dataSourceProvider) {
+    if (AuthConstants.AUDIT_SINK_FILE.equals(auditConfig.getSink())) {
+      return new RollingFileAuthorizationAuditSink(auditConfig.getDirectory(),
+        auditConfig.getMaxFileSizeMb() * BYTES_PER_MB, auditConfig.getMaxFiles());
+    }
+    checkState(AuthConstants.AUDIT_SINK_JDBC.equals(auditConfig.getSink()), "Unknown audit sink: %s",
+      auditConfig.getSink());
+    DataSource dataSource = dataSourceProvider.getIfAvailable();
+    checkState(dataSource != null, "Jdbc audit sink requires a DataSource bean.");
+    return new JdbcAuthorizationAuditSink(dataSource, auditConfig.getTable());
+  }
+
+  @Bean
+  public AuthorizationAuditor authorizationAuditor(AuthorizationAuditSink authorizationAuditSink,
+                                                   AuditConfig auditConfig) {
+    return new AuthorizationAuditor(authorizationAuditSink, auditConfig.getBufferCapacity(),
+      auditConfig.getBatchSize(), auditConfig.getFlushIntervalMillis());
+  }
+
+  /**
+   * Audit configuration.
+   */
+  @Setter
+  @Getter
+  public static class AuditConfig {
+
+    /**
+     * Destination of decisions, jdbc or file.
+     */
+    private String sink = AuthConstants.AUDIT_SINK_JDBC;
+
+    /**
+     * Buffered decisions before new ones are dropped, rounded up to a power of two.
+     */
+    private int bufferCapacity = AuthConstants.AUDIT_BUFFER_CAPACITY;
+
+    private int batchSize = AuthConstants.AUDIT_BATCH_SIZE;
+
+    private long flushIntervalMillis = AuthConstants.AUDIT_FLUSH_INTERVAL_MILLIS;
+
+    private String table = AuthConstants.AUDIT_TABLE;
+
+    private String directory = AuthConstants.AUDIT_DIRECTORY;
+
+    private long maxFileSizeMb = AuthConstants.AUDIT_MAX_FILE_SIZE_MB;
+
+    private int maxFiles = AuthConstants.AUDIT_MAX_FILES;
+
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.shiro.cache.RedisRemoteCacheStore;
+import com.thewolf.galaxy.auth.shiro.cache.RemoteCacheStore;
+import com.thewolf.galaxy.auth.shiro.cache.TwoLevelCacheManager;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Shiro cache configuration, caches authenticating users and authorization info in a near cache backed by redis.
+ */
+@SuppressWarnings("JavadocMethod")
+@ConditionalOnProperty(prefix = "shiro.cache", value = "enabled", havingValue = "true")
+public class ShiroCacheConfiguration {
+
+  @Bean
+  @ConfigurationProperties("shiro.cache")
+  public CacheConfig shiroCacheConfig() {
+    return new CacheConfig();
+  }
+
+  @Bean
+  public TwoLevelCacheManager shiroCacheManager(CacheConfig shiroCacheConfig,
+                                                ObjectProvider<RemoteCacheStore> remoteCacheStoreProvider) {
+    return new TwoLevelCacheManager(shiroCacheConfig.getNearMaximumSize(), shiroCacheConfig.getNearExpiresInSecond(),
+      remoteCacheStoreProvider.getIfAvailable());
+  }
+
+  /**
+   * Redis remote cache configuration.
+   */
+  @ConditionalOnClass(name = "org.springframework.data.redis.connection.RedisConnectionFactory")
+  @ConditionalOnProperty(prefix = "shiro.cache", value = "remote-enabled", havingValue = "true", matchIfMissing = true)
+  static class RedisRemoteCacheConfiguration {
+
+    @Bean
+    public RedisRemoteCacheStore redisRemoteCacheStore(RedisConnectionFactory redisConnectionFactory,
+                                                       CacheConfig shiroCacheConfig) {
+      return new RedisRemoteCacheStore(redisConnectionFactory, shiroCacheConfig.getRemoteExpiresInSecond());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer shiroCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                     RedisRemoteCacheStore redisRemoteCacheStore) {
+      RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+      container.setConnectionFactory(redisConnectionFactory);
+      container.addMessageListener(redisRemoteCacheStore, new ChannelTopic(RedisRemoteCacheStore.CHANNEL));
+      return container;
+    }
+  }
+
+  /**
+   * Cache configuration for setting near cache size and time to live of both levels.
+   */
+  @Setter
+  @Getter
+  public static class CacheConfig {
+
+    private long nearMaximumSize = 10000;
+
+    /**
+     * Near cache time to live, bounds staleness on nodes missing an invalidation broadcast.
+     */
+    private long nearExpiresInSecond = 60;
+
+    private boolean remoteEnabled = true;
+
+    private long remoteExpiresInSecond = 3600;
+
+  }
+}
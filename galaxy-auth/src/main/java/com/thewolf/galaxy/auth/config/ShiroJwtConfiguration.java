@@ -15,21 +15,38 @@
  */
 package com.thewolf.galaxy.auth.config;
 
+import com.thewolf.galaxy.auth.service.ApiKeyIndex;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.service.BatchingLoader;
+import com.thewolf.galaxy.auth.service.InMemoryRevocationStore;
+import com.thewolf.galaxy.auth.service.JwtKeyStore;
 import com.thewolf.galaxy.auth.service.JwtTokenService;
+import com.thewolf.galaxy.auth.service.RedisRevocationStore;
+import com.thewolf.galaxy.auth.service.RevocationStore;
 import com.thewolf.galaxy.auth.service.TokenService;
+import com.thewolf.galaxy.auth.shiro.authz.AuthorizationClaimsCodec;
 import com.thewolf.galaxy.auth.shiro.jwt.realm.JWTRealm;
 import com.thewolf.galaxy.auth.shiro.spring.web.RestShiroFilterFactoryBean;
 import com.thewolf.galaxy.auth.shiro.web.mgt.RestSecurityManager;
 import com.thewolf.galaxy.auth.shiro.web.servlet.RestShiroFilter;
 import com.thewolf.galaxy.auth.support.AuthConstants;
 import com.thewolf.galaxy.auth.support.AuthenticatingFacade;
+import com.thewolf.galaxy.auth.support.AuthenticatingUser;
+import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.shiro.cache.CacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * Shiro jwt configuration.
@@ -45,31 +62,74 @@ public class ShiroJwtConfiguration {
     return new JwtConfig();
   }
 
+  @Bean
+  @ConditionalOnProperty(prefix = "shiro.jwt", value = "key-store-location")
+  public JwtKeyStore jwtKeyStore(JwtConfig jwtConfig) {
+    return new JwtKeyStore(SignatureAlgorithm.forName(jwtConfig.getAlgorithm()), jwtConfig.getKeyStoreLocation(),
+      jwtConfig.getKeyStoreType(), jwtConfig.getKeyStorePassword(), jwtConfig.getKeyStoreReloadIntervalSecond(),
+      jwtConfig.getKeyStoreActiveKid(), jwtConfig.getKeyStoreActivationDelaySecond());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(RevocationStore.class)
+  public RevocationStore revocationStore() {
+    return new InMemoryRevocationStore();
+  }
+
   @Bean
   public TokenService tokenService() {
     return new JwtTokenService();
   }
 
   @Bean
-  public JWTRealm jwtRealm(AuthenticatingFacade authenticatingFacade) {
-    return new JWTRealm(authenticatingFacade);
+  @ConditionalOnProperty(prefix = "shiro.jwt", value = "authorization-claims-enabled", havingValue = "true")
+  public AuthorizationClaimsCodec authorizationClaimsCodec(AuthenticatingFacade authenticatingFacade,
+                                                           JwtConfig jwtConfig) {
+    return new AuthorizationClaimsCodec(authenticatingFacade, jwtConfig.getPermissionDictionaryRefreshIntervalSecond());
+  }
+
+  @Bean
+  public JWTRealm jwtRealm(AuthenticatingFacade authenticatingFacade,
+                           ObjectProvider<AuthorizationClaimsCodec> authorizationClaimsCodecProvider,
+                           ObjectProvider<ApiKeyIndex> apiKeyIndexProvider,
+                           ObjectProvider<BatchingLoader<AuthenticatingUser>> userLoaderProvider) {
+    JWTRealm jwtRealm = new JWTRealm(authenticatingFacade);
+    jwtRealm.setUserLoader(userLoaderProvider.getIfAvailable());
+    jwtRealm.setAuthorizationClaimsCodec(authorizationClaimsCodecProvider.getIfAvailable());
+    jwtRealm.setApiKeyIndex(apiKeyIndexProvider.getIfAvailable());
+    return jwtRealm;
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "shiro", value = "user-loader-enabled", havingValue = "true")
+  public BatchingLoader<AuthenticatingUser> userLoader(AuthenticatingFacade authenticatingFacade,
+                                                      ShiroProperties shiroConfiguration) {
+    return new BatchingLoader<>(authenticatingFacade::findUsersByIds, shiroConfiguration.getUserLoaderWindowMillis(),
+      shiroConfiguration.getUserLoaderMaxBatchSize(), shiroConfiguration.getUserLoaderTimeoutMillis());
   }
 
   @Bean
-  public RestSecurityManager securityManager(JWTRealm jwtRealm) {
+  public RestSecurityManager securityManager(JWTRealm jwtRealm, ObjectProvider<CacheManager> cacheManagerProvider) {
     RestSecurityManager restSecurityManager = new RestSecurityManager();
     restSecurityManager.setRealm(jwtRealm);
+    CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+    if (cacheManager != null) {
+      restSecurityManager.setCacheManager(cacheManager);
+    }
     return restSecurityManager;
   }
 
   @Bean
   public RestShiroFilterFactoryBean restShiroFilterFactoryBean(TokenService tokenService,
                                                                ShiroProperties shiroConfiguration,
-                                                               RestSecurityManager restSecurityManager) {
+                                                               RestSecurityManager restSecurityManager,
+                                                               ObjectProvider<AuthorizationAuditor> auditorProvider) {
     RestShiroFilterFactoryBean restShiroFilterFactoryBean = new RestShiroFilterFactoryBean();
     restShiroFilterFactoryBean.setSecurityManager(restSecurityManager);
     restShiroFilterFactoryBean.setTokenService(tokenService);
+    restShiroFilterFactoryBean.setAuthorizationAuditor(auditorProvider.getIfAvailable());
     restShiroFilterFactoryBean.setFilterChainDefinitionMap(shiroConfiguration.getFilterChains());
+    restShiroFilterFactoryBean.setFilterChainCacheSize(shiroConfiguration.getFilterChainCacheSize());
     return restShiroFilterFactoryBean;
   }
 
@@ -82,6 +142,31 @@ public class ShiroJwtConfiguration {
     return filterRegistrationBean;
   }
 
+  /**
+   * Redis refresh token revocation configuration.
+   */
+  @ConditionalOnClass(name = "org.springframework.data.redis.connection.RedisConnectionFactory")
+  @ConditionalOnProperty(prefix = "shiro.jwt", value = "revocation-store",
+    havingValue = AuthConstants.REVOCATION_STORE_REDIS)
+  static class RedisRevocationConfiguration {
+
+    @Bean
+    public RedisRevocationStore redisRevocationStore(RedisConnectionFactory redisConnectionFactory,
+                                                     JwtConfig jwtConfig) {
+      return new RedisRevocationStore(redisConnectionFactory, jwtConfig.getRevocationBloomExpectedInsertions(),
+        jwtConfig.getRevocationBloomRebuildIntervalSecond());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer revocationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                     RedisRevocationStore redisRevocationStore) {
+      RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+      container.setConnectionFactory(redisConnectionFactory);
+      container.addMessageListener(redisRevocationStore, new ChannelTopic(RedisRevocationStore.CHANNEL));
+      return container;
+    }
+  }
+
   /**
    * Jwt configuration for setting secret, algorithm & expires etc.
    */
@@ -99,5 +184,62 @@ public class ShiroJwtConfiguration {
 
     private long refreshExpiresInSecond = AuthConstants.REFRESH_EXPIRES_IN_SECOND;
 
+    /**
+     * Format of issued access tokens, jwt or compact. Compact tokens are binary encoded and require an HMAC
+     * algorithm, tokens of both formats are accepted whatever the setting.
+     */
+    private String tokenFormat = AuthConstants.TOKEN_FORMAT_JWT;
+
+    /**
+     * Maximum number of verified access tokens kept in memory, 0 disables the cache.
+     */
+    private long verifiedTokenCacheSize = AuthConstants.VERIFIED_TOKEN_CACHE_SIZE;
+
+    /**
+     * Key store of RSA or EC keys signing access tokens, required by RS/ES/PS algorithms, e.g. file:/etc/jwt.p12.
+     */
+    private String keyStoreLocation;
+
+    private String keyStoreType = AuthConstants.KEY_STORE_TYPE;
+
+    private String keyStorePassword;
+
+    /**
+     * Interval of reloading the key store to pick up rotated keys, 0 disables reloading.
+     */
+    private long keyStoreReloadIntervalSecond = AuthConstants.KEY_STORE_RELOAD_INTERVAL_SECOND;
+
+    /**
+     * Kid of the key signing access tokens, by default the newest key published for the activation delay.
+     */
+    private String keyStoreActiveKid;
+
+    /**
+     * Time a new key is published in the key set before signing, covers the reload interval of every node plus the
+     * cache lifetime of the key set.
+     */
+    private long keyStoreActivationDelaySecond = AuthConstants.KEY_STORE_ACTIVATION_DELAY_SECOND;
+
+    /**
+     * Store of used refresh tokens and revoked token families, memory or redis.
+     */
+    private String revocationStore = AuthConstants.REVOCATION_STORE_MEMORY;
+
+    private int revocationBloomExpectedInsertions = AuthConstants.REVOCATION_BLOOM_EXPECTED_INSERTIONS;
+
+    private long revocationBloomRebuildIntervalSecond = AuthConstants.REVOCATION_BLOOM_REBUILD_INTERVAL_SECOND;
+
+    /**
+     * Embed roles and permissions into access tokens as bitmaps over the permission dictionary, so authorization
+     * checks need no lookup. Assignment changes take effect once the token is refreshed.
+     */
+    private boolean authorizationClaimsEnabled;
+
+    /**
+     * Interval of reloading the permission dictionary from {@code AuthenticatingFacade}, 0 disables reloading.
+     */
+    private long permissionDictionaryRefreshIntervalSecond =
+      AuthConstants.PERMISSION_DICTIONARY_REFRESH_INTERVAL_SECOND;
+
   }
 }
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.service.LoginThrottle;
+import com.thewolf.galaxy.auth.service.RedisSlidingWindowRateLimiter;
+import com.thewolf.galaxy.auth.service.SlidingWindowRateLimiter;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throttle configuration, limits login attempts per client address and per username.
+ */
+@SuppressWarnings("JavadocMethod")
+@ConditionalOnProperty(prefix = "shiro.login-throttle", value = "enabled", havingValue = "true")
+public class ShiroLoginThrottleConfiguration {
+
+  public static final String STORE_MEMORY = "memory";
+
+  public static final String STORE_REDIS = "redis";
+
+  @Bean
+  @ConfigurationProperties("shiro.login-throttle")
+  public ThrottleConfig loginThrottleConfig() {
+    return new ThrottleConfig();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(LoginThrottle.class)
+  public LoginThrottle loginThrottle(ThrottleConfig loginThrottleConfig) {
+    long windowMillis = TimeUnit.SECONDS.toMillis(loginThrottleConfig.getWindowSecond());
+    return new LoginThrottle(
+      new SlidingWindowRateLimiter(windowMillis, loginThrottleConfig.getAddressLimit(),
+        loginThrottleConfig.getMaximumKeys()),
+      new SlidingWindowRateLimiter(windowMillis, loginThrottleConfig.getUsernameLimit(),
+        loginThrottleConfig.getMaximumKeys()));
+  }
+
+  /**
+   * Redis login throttle configuration sharing attempt counts across nodes.
+   */
+  @ConditionalOnClass(name = "org.springframework.data.redis.connection.RedisConnectionFactory")
+  @ConditionalOnProperty(prefix = "shiro.login-throttle", value = "store", havingValue = STORE_REDIS)
+  static class RedisLoginThrottleConfiguration {
+
+    @Bean
+    public LoginThrottle redisLoginThrottle(RedisConnectionFactory redisConnectionFactory,
+                                            ThrottleConfig loginThrottleConfig) {
+      long windowMillis = TimeUnit.SECONDS.toMillis(loginThrottleConfig.getWindowSecond());
+      return new LoginThrottle(
+        new RedisSlidingWindowRateLimiter(redisConnectionFactory, "address", windowMillis,
+          loginThrottleConfig.getAddressLimit()),
+        new RedisSlidingWindowRateLimiter(redisConnectionFactory, "username", windowMillis,
+          loginThrottleConfig.getUsernameLimit()));
+    }
+  }
+
+  /**
+   * Login throttle configuration for setting window and limits.
+   */
+  @Setter
+  @Getter
+  public static class ThrottleConfig {
+
+    private long windowSecond = 60;
+
+    /**
+     * Maximum login attempts per client address within a window.
+     */
+    private int addressLimit = 100;
+
+    /**
+     * Maximum login attempts per username within a window.
+     */
+    private int usernameLimit = 10;
+
+    /**
+     * Maximum number of tracked client addresses or usernames of the in memory store.
+     */
+    private long maximumKeys = 100000;
+
+    /**
+     * Attempt count store, memory or redis.
+     */
+    private String store = STORE_MEMORY;
+
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.config;
+
+import com.thewolf.galaxy.auth.service.PasswordHashingExecutor;
+import com.thewolf.galaxy.auth.shiro.authc.credential.Pbkdf2PasswordService;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.shiro.authc.credential.DefaultPasswordService;
+import org.apache.shiro.authc.credential.PasswordService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Password hashing configuration for setting algorithm, cost & hashing concurrency.
+ */
+@SuppressWarnings("JavadocMethod")
+public class ShiroPasswordConfiguration {
+
+  @Bean
+  @ConfigurationProperties("shiro.password")
+  public PasswordConfig passwordConfig() {
+    return new PasswordConfig();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(PasswordService.class)
+  public PasswordService passwordService(PasswordConfig passwordConfig) {
+    return new Pbkdf2PasswordService(passwordConfig.getAlgorithm(), passwordConfig.getIterations(),
+      passwordConfig.getSaltLength(), passwordConfig.getKeyLength(), new DefaultPasswordService());
+  }
+
+  @Bean
+  public PasswordHashingExecutor passwordHashingExecutor(PasswordConfig passwordConfig) {
+    int threads = passwordConfig.getHashingThreads() > 0
+      ? passwordConfig.getHashingThreads() : Runtime.getRuntime().availableProcessors();
+    return new PasswordHashingExecutor(threads, passwordConfig.getHashingQueueCapacity(),
+      passwordConfig.getHashingTimeoutMillis());
+  }
+
+  /**
+   * Password configuration, changing algorithm or cost re-encrypts passwords on next successful login.
+   */
+  @Setter
+  @Getter
+  public static class PasswordConfig {
+
+    private String algorithm = Pbkdf2PasswordService.DEFAULT_ALGORITHM;
+
+    private int iterations = Pbkdf2PasswordService.DEFAULT_ITERATIONS;
+
+    private int saltLength = Pbkdf2PasswordService.DEFAULT_SALT_LENGTH;
+
+    private int keyLength = Pbkdf2PasswordService.DEFAULT_KEY_LENGTH;
+
+    /**
+     * Number of password hashing threads, 0 means number of processors.
+     */
+    private int hashingThreads;
+
+    private int hashingQueueCapacity = AuthConstants.PASSWORD_HASHING_QUEUE_CAPACITY;
+
+    private long hashingTimeoutMillis = AuthConstants.PASSWORD_HASHING_TIMEOUT_MILLIS;
+
+  }
+}
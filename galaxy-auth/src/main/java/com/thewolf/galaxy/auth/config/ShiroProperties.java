@@ -17,16 +17,21 @@ package com.thewolf.galaxy.auth.config;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
+import com.thewolf.galaxy.auth.shiro.web.mgt.RestFilterChainResolver;
+import com.thewolf.galaxy.auth.support.AuthConstants;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Shiro configuration from application configuration.
  */
@@ -41,14 +46,49 @@ public class ShiroProperties {
 
   private List<String> filterUrlPatterns = Lists.newLinkedList();
 
+  private long filterChainCacheSize = RestFilterChainResolver.DEFAULT_CACHE_SIZE;
+
+  /**
+   * Whether to coalesce concurrent user lookups of the realm, worth it only while the facade overrides
+   * {@code findUsersByIds} with a single query.
+   */
+  private boolean userLoaderEnabled;
+
+  /**
+   * Time window of coalescing concurrent user lookups into one batched lookup, opened only while a batch is running.
+   */
+  private long userLoaderWindowMillis = AuthConstants.USER_LOADER_WINDOW_MILLIS;
+
+  private int userLoaderMaxBatchSize = AuthConstants.USER_LOADER_MAX_BATCH_SIZE;
+
   /**
-   * Get filter chains.
+   * Maximum time of waiting for a batched user lookup.
+   */
+  private long userLoaderTimeoutMillis = AuthConstants.USER_LOADER_TIMEOUT_MILLIS;
+
+  /**
+   * Get filter chains in definition order, the first matching chain wins.
    *
    * @return filter chains.
    */
   public Map<String, String> getFilterChains() {
-    return chains.stream().map(chain -> Splitter.on("=").limit(2).splitToList(chain))
-      .collect(Collectors.toMap(list -> list.get(0), list -> list.get(1)));
+    return parseFilterChains(chains);
+  }
+
+  /**
+   * Parse filter chains of {@code pattern=definition} form, the first chain of duplicated patterns wins.
+   *
+   * @param chains filter chains.
+   * @return filter chain definitions by pattern in definition order.
+   * @throws IllegalArgumentException while a chain is not of {@code pattern=definition} form.
+   */
+  public static Map<String, String> parseFilterChains(List<String> chains) {
+    return chains.stream().map(chain -> {
+      List<String> parts = Splitter.on("=").limit(2).trimResults().splitToList(chain);
+      checkArgument(parts.size() == 2 && !parts.get(0).isEmpty(), "Malformed filter chain [%s].", chain);
+      return parts;
+    }).collect(Collectors.toMap(list -> list.get(0), list -> list.get(1), (first, second) -> first,
+      LinkedHashMap::new));
   }
 
 }
@@ -18,15 +18,25 @@ package com.thewolf.galaxy.auth.controller;
 import com.thewolf.galaxy.auth.exception.ExpiredRefreshTokenException;
 import com.thewolf.galaxy.auth.exception.InvalidPasswordException;
 import com.thewolf.galaxy.auth.exception.InvalidRefreshTokenException;
+import com.thewolf.galaxy.auth.exception.JwksNotFoundException;
 import com.thewolf.galaxy.auth.exception.UserDisabledException;
 import com.thewolf.galaxy.auth.exception.UserNotFoundException;
 import com.thewolf.galaxy.auth.object.request.ExchangeRequest;
+import com.thewolf.galaxy.auth.object.request.IntrospectRequest;
 import com.thewolf.galaxy.auth.object.request.TokenRequest;
 import com.thewolf.galaxy.auth.object.response.AuthUserInfo;
+import com.thewolf.galaxy.auth.object.response.IntrospectResult;
+import com.thewolf.galaxy.auth.service.JwtKeyStore;
+import com.thewolf.galaxy.auth.service.LoginThrottle;
+import com.thewolf.galaxy.auth.service.PasswordHashingExecutor;
 import com.thewolf.galaxy.auth.service.TokenService;
+import com.thewolf.galaxy.auth.shiro.jwt.realm.JWTRealm;
+import com.thewolf.galaxy.auth.shiro.authc.credential.RehashablePasswordService;
+import com.thewolf.galaxy.auth.support.AuthConstants;
 import com.thewolf.galaxy.auth.support.AuthenticatingFacade;
 import com.thewolf.galaxy.auth.support.AuthenticatingUser;
 import com.thewolf.galaxy.auth.support.RestToken;
+import com.thewolf.galaxy.auth.support.SecurityContext;
 import com.thewolf.galaxy.common.web.support.BaseController;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
@@ -37,10 +47,13 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import ma.glasnost.orika.MapperFacade;
-import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.credential.PasswordService;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -48,7 +61,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Token controller provides token related operations.
@@ -62,9 +83,16 @@ import javax.validation.Valid;
 @Validated
 public class AuthController extends BaseController {
 
+  public static final String INTROSPECT_PERMISSION = "auth:token:introspect";
+
+  private static final long JWKS_MAX_AGE_MINUTE = 5;
+
   @Autowired
   private PasswordService passwordService;
 
+  @Autowired
+  private PasswordHashingExecutor passwordHashingExecutor;
+
   @Autowired
   private AuthenticatingFacade authenticatingFacade;
 
@@ -74,32 +102,67 @@ public class AuthController extends BaseController {
   @Autowired
   private MapperFacade mapperFacade;
 
+  @Autowired
+  private JWTRealm jwtRealm;
+
+  @Autowired(required = false)
+  private JwtKeyStore jwtKeyStore;
+
+  @Autowired(required = false)
+  private LoginThrottle loginThrottle;
+
   /**
    * Get access token.
    *
    * @param tokenRequest token request.
+   * @param request      servlet request.
    * @return an instance of {@code RestToken}.
    */
   @ApiResponses({
     @ApiResponse(code = 200, message = "New signed token."),
     @ApiResponse(code = 401, message = "User not found or invalid password or user disabled."),
+    @ApiResponse(code = 429, message = "Too many login attempts."),
+    @ApiResponse(code = 503, message = "Too many concurrent authentications."),
   })
   @ApiOperation(value = "get access token")
   @PostMapping(value = "/token", produces = "application/json", consumes = "application/json")
-  public RestToken token(@Valid @RequestBody TokenRequest tokenRequest) {
+  public RestToken token(@Valid @RequestBody TokenRequest tokenRequest, HttpServletRequest request) {
+    if (loginThrottle != null) {
+      loginThrottle.check(tokenRequest.getUsername(), request.getRemoteAddr());
+    }
     AuthenticatingUser authenticatingUser = authenticatingFacade.findUserByUsername(tokenRequest.getUsername());
     if (authenticatingUser == null) {
       throw new UserNotFoundException();
     }
-    if (!passwordService.passwordsMatch(tokenRequest.getPassword(), authenticatingUser.getPassword())) {
+    String encryptedPassword = authenticatingUser.getPassword();
+    if (!passwordHashingExecutor.execute(
+      () -> passwordService.passwordsMatch(tokenRequest.getPassword(), encryptedPassword))) {
       throw new InvalidPasswordException();
     }
     if (!authenticatingUser.isActive()) {
       throw new UserDisabledException(tokenRequest.getUsername());
     }
+    rehashPasswordIfNecessary(authenticatingUser.getId(), encryptedPassword, tokenRequest.getPassword());
     return tokenService.signToken(authenticatingUser);
   }
 
+  /**
+   * Re-encrypt password in background while it was encrypted with outdated hashing parameters and the facade can
+   * persist it.
+   *
+   * @param userId            user id.
+   * @param encryptedPassword stored encrypted password.
+   * @param password          verified plaintext password.
+   */
+  private void rehashPasswordIfNecessary(String userId, String encryptedPassword, String password) {
+    if (!authenticatingFacade.supportsPasswordUpdate() || !(passwordService instanceof RehashablePasswordService)
+      || !((RehashablePasswordService) passwordService).needsRehash(encryptedPassword)) {
+      return;
+    }
+    passwordHashingExecutor.tryExecute(
+      () -> authenticatingFacade.updatePassword(userId, passwordService.encryptPassword(password)));
+  }
+
   /**
    * Exchange access token with refresh token.
    *
@@ -114,7 +177,7 @@ public class AuthController extends BaseController {
   @PostMapping(value = "/exchange", produces = "application/json", consumes = "application/json")
   public RestToken exchange(@Valid @RequestBody ExchangeRequest exchangeRequest) {
     try {
-      Claims claims = (Claims) tokenService.parseToken(exchangeRequest.getRefreshToken());
+      Claims claims = (Claims) tokenService.useRefreshToken(exchangeRequest.getRefreshToken());
       AuthenticatingUser authenticatingUser = authenticatingFacade.findUserById(claims.getSubject());
       if (authenticatingUser == null) {
         throw new UserNotFoundException();
@@ -122,7 +185,11 @@ public class AuthController extends BaseController {
       if (!authenticatingUser.isActive()) {
         throw new UserDisabledException(authenticatingUser.getUsername());
       }
-      return tokenService.signToken(authenticatingUser);
+      if (authenticatingUser.getValidAfter() != null
+        && claims.getIssuedAt().before(Date.from(authenticatingUser.getValidAfter().toInstant()))) {
+        throw new InvalidRefreshTokenException();
+      }
+      return tokenService.signToken(authenticatingUser, claims.get(AuthConstants.FAMILY_CLAIM, String.class));
     } catch (ExpiredJwtException e) {
       throw new ExpiredRefreshTokenException();
     } catch (JwtException e) {
@@ -144,7 +211,83 @@ public class AuthController extends BaseController {
   @RequiresAuthentication
   @GetMapping(value = "/info", produces = "application/json")
   public AuthUserInfo info() {
-    return mapperFacade.map(SecurityUtils.getSubject().getPrincipal(), AuthUserInfo.class);
+    return mapperFacade.map(SecurityContext.current().getUser(), AuthUserInfo.class);
+  }
+
+  /**
+   * Introspect access tokens in batch, tokens are verified through the verified token cache and their users are
+   * checked by one batched lookup. Results keep the order of tokens. Callers, typically resource servers
+   * authenticating with an api key, need the {@value #INTROSPECT_PERMISSION} permission, and tokens are verified
+   * sequentially on the request thread so one request can not occupy more than one core.
+   *
+   * @param introspectRequest introspect request.
+   * @return introspection results, cacheable until the earliest expiration of active tokens.
+   */
+  @ApiResponses({
+    @ApiResponse(code = 200, message = "Introspection result per token."),
+    @ApiResponse(code = 401, message = "Caller not authenticated."),
+    @ApiResponse(code = 403, message = "Caller not permitted.")}
+  )
+  @ApiOperation(value = "introspect access tokens")
+  @RequiresPermissions(INTROSPECT_PERMISSION)
+  @PostMapping(value = "/introspect", produces = "application/json", consumes = "application/json")
+  public ResponseEntity<List<IntrospectResult>> introspect(@Valid @RequestBody IntrospectRequest introspectRequest) {
+    List<Claims> verified = introspectRequest.getTokens().stream().map(this::verifyAccessToken)
+      .collect(Collectors.toList());
+    Map<String, AuthenticatingUser> users = jwtRealm.findUsersByIds(verified.stream().filter(Objects::nonNull)
+      .map(Claims::getSubject).collect(Collectors.toSet()));
+    List<IntrospectResult> results = verified.stream()
+      .map(claims -> toIntrospectResult(claims, claims != null ? users.get(claims.getSubject()) : null))
+      .collect(Collectors.toList());
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    OptionalLong maxAge = results.stream().filter(IntrospectResult::isActive)
+      .mapToLong(result -> result.getExp() - now).min();
+    return ResponseEntity.ok()
+      .cacheControl(maxAge.isPresent() && maxAge.getAsLong() > 0
+        ? CacheControl.maxAge(maxAge.getAsLong(), TimeUnit.SECONDS).cachePrivate() : CacheControl.noStore())
+      .body(results);
+  }
+
+  private Claims verifyAccessToken(String token) {
+    if (token == null) {
+      return null;
+    }
+    try {
+      Claims claims = (Claims) tokenService.parseToken(token);
+      return claims.getSubject() != null && claims.getExpiration() != null ? claims : null;
+    } catch (JwtException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static IntrospectResult toIntrospectResult(Claims claims, AuthenticatingUser user) {
+    if (claims == null || user == null || !user.isActive() || user.getValidAfter() == null
+      || claims.getIssuedAt() == null || claims.getIssuedAt().before(Date.from(user.getValidAfter().toInstant()))) {
+      return IntrospectResult.INACTIVE;
+    }
+    return new IntrospectResult(true, claims.getSubject(),
+      TimeUnit.MILLISECONDS.toSeconds(claims.getExpiration().getTime()));
+  }
+
+  /**
+   * Get JSON Web Key Set for verifying access tokens locally.
+   *
+   * @return serialized JSON Web Key Set.
+   */
+  @ApiResponses({
+    @ApiResponse(code = 200, message = "JSON Web Key Set."),
+    @ApiResponse(code = 404, message = "Access tokens are not signed with asymmetric keys.")}
+  )
+  @ApiOperation(value = "get json web key set")
+  @GetMapping(value = "/.well-known/jwks.json", produces = "application/json")
+  public ResponseEntity<byte[]> jwks() {
+    if (jwtKeyStore == null) {
+      throw new JwksNotFoundException();
+    }
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_JSON_UTF8)
+      .cacheControl(CacheControl.maxAge(JWKS_MAX_AGE_MINUTE, TimeUnit.MINUTES).cachePublic())
+      .body(jwtKeyStore.getJwks());
   }
 
 }
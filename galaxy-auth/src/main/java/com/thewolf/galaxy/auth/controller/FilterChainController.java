@@ -0,0 +1,98 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.controller;
+
+import com.thewolf.galaxy.auth.config.ShiroProperties;
+import com.thewolf.galaxy.auth.exception.InvalidFilterChainException;
+import com.thewolf.galaxy.auth.shiro.spring.web.RestShiroFilterFactoryBean;
+import com.thewolf.galaxy.common.web.support.BaseController;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Filter chain controller provides runtime reloading of shiro filter chains. Reloads are node-local and in-memory:
+ * they apply only to the node serving the request and are lost on restart, so update every node and the
+ * {@code shiro.chains} configuration alike.
+ */
+@Api(tags = "auth", description = "Every thing about auth",
+  produces = "application/json", consumes = "application/json")
+@RequestMapping(value = "/api/auth/chains")
+@RestController
+@Validated
+public class FilterChainController extends BaseController {
+
+  public static final String READ_PERMISSION = "auth:chain:read";
+
+  public static final String UPDATE_PERMISSION = "auth:chain:update";
+
+  @Autowired
+  private RestShiroFilterFactoryBean restShiroFilterFactoryBean;
+
+  /**
+   * Get current filter chains.
+   *
+   * @return filter chains of {@code pattern=definition} form in definition order.
+   */
+  @ApiResponses({
+    @ApiResponse(code = 200, message = "Current filter chains.")}
+  )
+  @ApiOperation(value = "get filter chains")
+  @RequiresPermissions(READ_PERMISSION)
+  @GetMapping(produces = "application/json")
+  public List<String> chains() {
+    return restShiroFilterFactoryBean.getFilterChainDefinitionMap().entrySet().stream()
+      .map(entry -> entry.getKey() + "=" + entry.getValue()).collect(Collectors.toList());
+  }
+
+  /**
+   * Replace filter chains of this node until it restarts, requests in flight finish with the previous chains.
+   *
+   * @param chains filter chains of {@code pattern=definition} form in definition order.
+   * @return reloaded filter chains.
+   */
+  @ApiResponses({
+    @ApiResponse(code = 200, message = "Reloaded filter chains."),
+    @ApiResponse(code = 400, message = "Malformed chain or unknown filter.")}
+  )
+  @ApiOperation(value = "reload filter chains",
+    notes = "Applies to the serving node only and is not persisted, chains revert to configuration on restart.")
+  @RequiresPermissions(UPDATE_PERMISSION)
+  @PutMapping(produces = "application/json", consumes = "application/json")
+  public List<String> reload(@RequestBody List<String> chains) {
+    try {
+      Map<String, String> definitions = ShiroProperties.parseFilterChains(chains);
+      restShiroFilterFactoryBean.reloadFilterChains(definitions);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidFilterChainException(e.getMessage());
+    }
+    return chains();
+  }
+
+}
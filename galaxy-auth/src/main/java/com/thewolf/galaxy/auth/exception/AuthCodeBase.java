@@ -40,6 +40,16 @@ public interface AuthCodeBase {
    */
   int NUMERIC_NOT_FOUND_ERROR_BASE = NUMERIC_ERROR_CODE_RANGE_BASE + 400;
 
+  /**
+   * Numeric error codes range base for "service unavailable" family exceptions.
+   */
+  int NUMERIC_SERVICE_UNAVAILABLE_ERROR_BASE = NUMERIC_ERROR_CODE_RANGE_BASE + 500;
+
+  /**
+   * Numeric error codes range base for "too many requests" family exceptions.
+   */
+  int NUMERIC_TOO_MANY_REQUESTS_ERROR_BASE = NUMERIC_ERROR_CODE_RANGE_BASE + 600;
+
   /**
    * Numeric error codes range base for "conflict" family exceptions.
    */
@@ -65,6 +75,16 @@ public interface AuthCodeBase {
    */
   String NOT_FOUND_ERROR_BASE = ERROR_CODE_BASE + "not_found.";
 
+  /**
+   * String error codes base for "service unavailable" family exceptions.
+   */
+  String SERVICE_UNAVAILABLE_ERROR_BASE = ERROR_CODE_BASE + "service_unavailable.";
+
+  /**
+   * String error codes base for "too many requests" family exceptions.
+   */
+  String TOO_MANY_REQUESTS_ERROR_BASE = ERROR_CODE_BASE + "too_many_requests.";
+
   /**
    * String error codes base for "conflict" family exceptions.
    */
@@ -19,13 +19,16 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.thewolf.galaxy.auth.support.AuthenticatingFacade;
 import com.thewolf.galaxy.auth.support.AuthenticatingUser;
+import com.thewolf.galaxy.auth.support.UserAuthorization;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.shiro.authc.credential.DefaultPasswordService;
 import org.apache.shiro.authc.credential.PasswordService;
 
+import java.io.Serializable;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -76,13 +79,56 @@ public class FakeAuthenticatingFacade implements AuthenticatingFacade {
     return user != null ? user.getPermissions() : Sets.newHashSet();
   }
 
+  @Override
+  public Map<String, AuthenticatingUser> findUsersByIds(Collection<String> ids) {
+    Map<String, AuthenticatingUser> found = Maps.newHashMap();
+    ids.stream().filter(users::containsKey).forEach(id -> found.put(id, users.get(id)));
+    return found;
+  }
+
+  @Override
+  public Map<String, UserAuthorization> findAuthorizationByUserIds(Collection<String> ids) {
+    Map<String, UserAuthorization> found = Maps.newHashMap();
+    ids.forEach(id -> found.put(id, new UserAuthorization(findRolesByUserId(id), findPermissionsByUserId(id))));
+    return found;
+  }
+
+  @Override
+  public Set<String> findAllRoles() {
+    Set<String> roles = Sets.newHashSet();
+    users.values().forEach(user -> roles.addAll(user.getRoles()));
+    return roles;
+  }
+
+  @Override
+  public Set<String> findAllPermissions() {
+    Set<String> permissions = Sets.newHashSet();
+    users.values().forEach(user -> permissions.addAll(user.getPermissions()));
+    return permissions;
+  }
+
+  @Override
+  public boolean supportsPasswordUpdate() {
+    return true;
+  }
+
+  @Override
+  public void updatePassword(String id, String encryptedPassword) {
+    FakeAuthenticatingUser user = users.get(id);
+    if (user != null) {
+      user.setPassword(encryptedPassword);
+    }
+  }
+
   /**
    * Fake {@code AuthenticatingUser}.
    */
   @Getter
   @Setter
   @AllArgsConstructor
-  public static class FakeAuthenticatingUser implements AuthenticatingUser {
+  public static class FakeAuthenticatingUser implements AuthenticatingUser, Serializable {
+
+    private static final long serialVersionUID = -1794863384011305541L;
 
     private String id;
 
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.object.request;
+
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Request body for introspecting access tokens.
+ */
+@Getter
+@Setter
+public class IntrospectRequest {
+
+  @ApiModelProperty(required = true)
+  @NotNull
+  @Size(min = 1, max = AuthConstants.INTROSPECT_MAX_TOKENS)
+  private List<String> tokens;
+}
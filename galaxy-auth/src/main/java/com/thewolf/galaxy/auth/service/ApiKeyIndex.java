@@ -0,0 +1,214 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thewolf.galaxy.auth.support.ApiKey;
+import com.thewolf.galaxy.auth.support.ApiKeyStore;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * In-memory index of active API keys by SHA-256 digest, so a key lookup is one digest and one map probe.
+ * Keys are loaded fully on start, then incrementally by modification time, overlapping the previous window so keys
+ * committed late with an earlier modification time are still picked up. A full reload runs every
+ * {@value #FULL_RELOAD_EVERY} refreshes to drop keys deleted from the store instead of revoked.
+ * A failing initial load is retried by the next refresh while refreshing is enabled.
+ */
+@Slf4j
+public class ApiKeyIndex {
+
+  static final int FULL_RELOAD_EVERY = 60;
+
+  private static final HashFunction DIGEST = Hashing.sha256();
+
+  private final ApiKeyStore apiKeyStore;
+
+  private final long refreshIntervalSecond;
+
+  private final long refreshOverlapSecond;
+
+  private final ConcurrentMap<String, ApiKey> keysByDigest = Maps.newConcurrentMap();
+
+  private final Map<String, String> digestsById = Maps.newHashMap();
+
+  private ZonedDateTime watermark;
+
+  private int refreshes;
+
+  private ScheduledExecutorService refresher;
+
+  /**
+   * Constructor.
+   *
+   * @param apiKeyStore           an instance of {@code ApiKeyStore}.
+   * @param refreshIntervalSecond interval of loading modified keys, 0 disables refreshing.
+   * @param refreshOverlapSecond  overlap of consecutive refresh windows.
+   */
+  public ApiKeyIndex(ApiKeyStore apiKeyStore, long refreshIntervalSecond, long refreshOverlapSecond) {
+    checkNotNull(apiKeyStore);
+    checkArgument(refreshIntervalSecond >= 0, "refreshIntervalSecond must not be negative");
+    checkArgument(refreshOverlapSecond >= 0, "refreshOverlapSecond must not be negative");
+    this.apiKeyStore = apiKeyStore;
+    this.refreshIntervalSecond = refreshIntervalSecond;
+    this.refreshOverlapSecond = refreshOverlapSecond;
+  }
+
+  /**
+   * Load keys and schedule refreshing.
+   */
+  @PostConstruct
+  public void init() {
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      if (refreshIntervalSecond == 0) {
+        throw e;
+      }
+      log.error("Failed to load api keys, retrying in {} seconds.", refreshIntervalSecond, e);
+    }
+    if (refreshIntervalSecond > 0) {
+      refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("api-key-index-refresher").setDaemon(true).build());
+      refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalSecond, refreshIntervalSecond,
+        TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Stop refreshing.
+   */
+  @PreDestroy
+  public void destroy() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+    }
+  }
+
+  /**
+   * Find active key.
+   *
+   * @param rawKey raw key presented by client.
+   * @return an instance of {@code ApiKey} or null while unknown, revoked or expired.
+   */
+  public ApiKey find(String rawKey) {
+    ApiKey apiKey = keysByDigest.get(digest(rawKey));
+    if (apiKey == null || apiKey.getExpiresAt() != null && !apiKey.getExpiresAt().isAfter(ZonedDateTime.now())) {
+      return null;
+    }
+    return apiKey;
+  }
+
+  /**
+   * Get number of indexed keys.
+   *
+   * @return key count.
+   */
+  public int size() {
+    return keysByDigest.size();
+  }
+
+  /**
+   * Load keys modified since last refresh, every {@value #FULL_RELOAD_EVERY} refreshes reload all keys instead.
+   * Failures are logged and the current index is kept.
+   */
+  public synchronized void refresh() {
+    try {
+      if (++refreshes % FULL_RELOAD_EVERY == 0 || watermark == null) {
+        reload();
+        return;
+      }
+      Collection<? extends ApiKey> modified = apiKeyStore.findUpdatedSince(
+        watermark.minusSeconds(refreshOverlapSecond));
+      modified.forEach(this::apply);
+      if (!modified.isEmpty()) {
+        log.debug("Applied {} modified api keys.", modified.size());
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to refresh api keys, keeping current index.", e);
+    }
+  }
+
+  /**
+   * Reload all keys.
+   */
+  public synchronized void reload() {
+    Collection<? extends ApiKey> all = apiKeyStore.findAll();
+    Map<String, String> loaded = Maps.newHashMapWithExpectedSize(all.size());
+    all.forEach(apiKey -> {
+      if (apiKey.isActive()) {
+        keysByDigest.put(apiKey.getDigest(), apiKey);
+        loaded.put(apiKey.getId(), apiKey.getDigest());
+      }
+      advanceWatermark(apiKey);
+    });
+    digestsById.forEach((id, digest) -> {
+      if (!digest.equals(loaded.get(id))) {
+        keysByDigest.remove(digest);
+      }
+    });
+    digestsById.clear();
+    digestsById.putAll(loaded);
+    log.info("Loaded {} active api keys.", loaded.size());
+  }
+
+  private void apply(ApiKey apiKey) {
+    String previous = apiKey.isActive()
+      ? digestsById.put(apiKey.getId(), apiKey.getDigest()) : digestsById.remove(apiKey.getId());
+    if (previous != null && !previous.equals(apiKey.getDigest())) {
+      keysByDigest.remove(previous);
+    }
+    if (apiKey.isActive()) {
+      keysByDigest.put(apiKey.getDigest(), apiKey);
+    } else {
+      keysByDigest.remove(apiKey.getDigest());
+    }
+    advanceWatermark(apiKey);
+  }
+
+  private void advanceWatermark(ApiKey apiKey) {
+    ZonedDateTime updatedAt = apiKey.getUpdatedAt();
+    if (updatedAt != null && (watermark == null || updatedAt.isAfter(watermark))) {
+      watermark = updatedAt;
+    }
+  }
+
+  /**
+   * Get digest of raw key as stored by {@code ApiKeyStore}.
+   *
+   * @param rawKey raw key.
+   * @return lower case hex SHA-256 digest.
+   */
+  public static String digest(String rawKey) {
+    return DIGEST.hashString(rawKey, Charsets.UTF_8).toString();
+  }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.thewolf.galaxy.auth.support.AuthorizationDecision;
+
+import java.util.List;
+
+/**
+ * Destination of audited authorization decisions, only invoked from the drain thread of
+ * {@code AuthorizationAuditor}.
+ */
+public interface AuthorizationAuditSink {
+
+  /**
+   * Write a batch of decisions.
+   *
+   * @param decisions decisions in recording order.
+   * @throws Exception while writing fail, the batch is dropped.
+   */
+  void write(List<AuthorizationDecision> decisions) throws Exception;
+
+  /**
+   * Release resources while the auditor stops.
+   */
+  default void close() {
+  }
+}
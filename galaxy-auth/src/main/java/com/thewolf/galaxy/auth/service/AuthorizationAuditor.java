@@ -0,0 +1,287 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.collect.Lists;
+import com.thewolf.galaxy.auth.support.AuthenticatingUser;
+import com.thewolf.galaxy.auth.support.AuthorizationDecision;
+import com.thewolf.galaxy.auth.support.AuthorizationDecision.Source;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.subject.Subject;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Asynchronous audit of authorization decisions. Request threads publish into a bounded lock-free ring buffer and
+ * never block, decisions are dropped and counted while the buffer is full. A single daemon thread drains the buffer
+ * and hands batches to {@code AuthorizationAuditSink}.
+ */
+@Slf4j
+public class AuthorizationAuditor {
+
+  private final AuthorizationAuditSink sink;
+
+  private final RingBuffer buffer;
+
+  private final int batchSize;
+
+  private final long flushIntervalNanos;
+
+  private final LongAdder recorded = new LongAdder();
+
+  private final LongAdder dropped = new LongAdder();
+
+  private final LongAdder written = new LongAdder();
+
+  private final LongAdder failed = new LongAdder();
+
+  private volatile boolean running;
+
+  private Thread drainer;
+
+  /**
+   * Constructor.
+   *
+   * @param sink                an instance of {@code AuthorizationAuditSink}.
+   * @param capacity            ring buffer capacity, rounded up to a power of two.
+   * @param batchSize           maximum number of decisions handed to sink at once.
+   * @param flushIntervalMillis pause of the drain thread after a partial batch.
+   */
+  public AuthorizationAuditor(AuthorizationAuditSink sink, int capacity, int batchSize, long flushIntervalMillis) {
+    checkNotNull(sink);
+    checkArgument(capacity > 0 && capacity <= 1 << 30, "capacity must be in (0, 2^30]");
+    checkArgument(batchSize > 0, "batchSize must be positive");
+    checkArgument(flushIntervalMillis > 0, "flushIntervalMillis must be positive");
+    this.sink = sink;
+    this.buffer = new RingBuffer(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+  }
+
+  /**
+   * Start the drain thread.
+   */
+  @PostConstruct
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    drainer = new Thread(this::drainLoop, "auth-audit-drainer");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /**
+   * Stop the drain thread after writing buffered decisions. The drain thread is interrupted while it does not end in
+   * time, the sink is closed only after the drain thread ended and left open otherwise.
+   */
+  @PreDestroy
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(drainer);
+    long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + TimeUnit.SECONDS.toMillis(5);
+    try {
+      drainer.join(timeoutMillis);
+      if (drainer.isAlive()) {
+        log.warn("Audit drainer not ended in {}ms, interrupting it.", timeoutMillis);
+        drainer.interrupt();
+        drainer.join(timeoutMillis);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (drainer.isAlive()) {
+      log.warn("Audit drainer still running, leaving the audit sink open.");
+      return;
+    }
+    sink.close();
+  }
+
+  /**
+   * Record decision of subject, never blocks.
+   *
+   * @param source      where the decision was made.
+   * @param subject     deciding subject, could be null.
+   * @param resource    checked resource.
+   * @param requirement required roles or permissions.
+   * @param allowed     whether access is allowed.
+   * @return false while the decision is dropped for the buffer is full.
+   */
+  public boolean record(Source source, Subject subject, String resource, String requirement, boolean allowed) {
+    Object principal = subject != null ? subject.getPrincipal() : null;
+    String userId = principal instanceof AuthenticatingUser ? ((AuthenticatingUser) principal).getId() : null;
+    return record(new AuthorizationDecision(System.currentTimeMillis(), source, userId, resource, requirement,
+      allowed));
+  }
+
+  /**
+   * Record decision, never blocks.
+   *
+   * @param decision authorization decision.
+   * @return false while the decision is dropped for the buffer is full.
+   */
+  public boolean record(AuthorizationDecision decision) {
+    if (buffer.offer(decision)) {
+      recorded.increment();
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  /**
+   * Get number of decisions accepted into the buffer.
+   *
+   * @return recorded count.
+   */
+  public long getRecordedCount() {
+    return recorded.sum();
+  }
+
+  /**
+   * Get number of decisions dropped for the buffer was full.
+   *
+   * @return dropped count.
+   */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * Get number of decisions written by sink.
+   *
+   * @return written count.
+   */
+  public long getWrittenCount() {
+    return written.sum();
+  }
+
+  /**
+   * Get number of decisions lost while sink failed.
+   *
+   * @return failed count.
+   */
+  public long getFailedCount() {
+    return failed.sum();
+  }
+
+  /**
+   * Get approximate number of buffered decisions.
+   *
+   * @return buffered count.
+   */
+  public int getBufferedCount() {
+    return buffer.size();
+  }
+
+  private void drainLoop() {
+    List<AuthorizationDecision> batch = Lists.newArrayListWithCapacity(batchSize);
+    while (running) {
+      int drained = buffer.drain(batch, batchSize);
+      flush(batch);
+      if (drained < batchSize) {
+        LockSupport.parkNanos(this, flushIntervalNanos);
+      }
+    }
+    while (buffer.drain(batch, batchSize) > 0) {
+      flush(batch);
+    }
+  }
+
+  private void flush(List<AuthorizationDecision> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      sink.write(batch);
+      written.add(batch.size());
+    } catch (Exception e) {
+      failed.add(batch.size());
+      log.warn("Failed to write {} audited authorization decisions.", batch.size(), e);
+    } finally {
+      batch.clear();
+    }
+  }
+
+  /**
+   * Bounded multi-producer single-consumer ring buffer. Producers claim a slot by advancing the tail and publish
+   * the element into it afterwards, the consumer stops at the first slot not yet published.
+   */
+  private static class RingBuffer {
+
+    private final AtomicReferenceArray<AuthorizationDecision> slots;
+
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(int capacity) {
+      int size = Integer.highestOneBit(capacity - 1) << 1;
+      this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+      this.mask = slots.length() - 1;
+    }
+
+    boolean offer(AuthorizationDecision decision) {
+      long claimed;
+      do {
+        claimed = tail.get();
+        if (claimed - head.get() >= slots.length()) {
+          return false;
+        }
+      } while (!tail.compareAndSet(claimed, claimed + 1));
+      slots.lazySet((int) claimed & mask, decision);
+      return true;
+    }
+
+    int drain(List<AuthorizationDecision> batch, int limit) {
+      long current = head.get();
+      int count = 0;
+      while (count < limit) {
+        int index = (int) current & mask;
+        AuthorizationDecision decision = slots.get(index);
+        if (decision == null) {
+          break;
+        }
+        slots.lazySet(index, null);
+        batch.add(decision);
+        current++;
+        count++;
+      }
+      head.lazySet(current);
+      return count;
+    }
+
+    int size() {
+      return (int) Math.max(0, tail.get() - head.get());
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Loader coalescing concurrent single lookups into batched lookups. While no batch is running a lookup is dispatched
+ * right away, otherwise the first pending key opens a window, keys requested within the window share one batch call,
+ * which is dispatched when the window closes or the batch is full. Concurrent requests for the same key share one
+ * future.
+ * Batches are dispatched on the calling threads, the caller opening a window dispatches it when the window closes and
+ * the caller filling a batch dispatches it right away, so batches of different windows run concurrently. Callers
+ * waiting for a batch dispatched by another caller give up after the timeout.
+ *
+ * @param <V> value type.
+ */
+@Slf4j
+public class BatchingLoader<V> {
+
+  private final Function<Collection<String>, Map<String, V>> batchFunction;
+
+  private final long windowMillis;
+
+  private final int maxBatchSize;
+
+  private final long timeoutMillis;
+
+  private Map<String, CompletableFuture<V>> pending = Maps.newLinkedHashMap();
+
+  private int running;
+
+  /**
+   * Constructor.
+   *
+   * @param batchFunction batch lookup, keys not found should be absent from the result.
+   * @param windowMillis  time window of coalescing lookups.
+   * @param maxBatchSize  maximum keys per batch call.
+   * @param timeoutMillis maximum time of waiting for a batch.
+   */
+  public BatchingLoader(Function<Collection<String>, Map<String, V>> batchFunction, long windowMillis,
+                        int maxBatchSize, long timeoutMillis) {
+    checkNotNull(batchFunction);
+    checkArgument(windowMillis > 0, "windowMillis must be positive");
+    checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+    checkArgument(timeoutMillis > 0, "timeoutMillis must be positive");
+    this.batchFunction = batchFunction;
+    this.windowMillis = windowMillis;
+    this.maxBatchSize = maxBatchSize;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Load value, waiting for its batch to complete.
+   *
+   * @param key key.
+   * @return value or null while not found.
+   * @throws UncheckedTimeoutException while the batch dispatched by another caller is not completed in time.
+   */
+  public V get(String key) {
+    checkNotNull(key);
+    CompletableFuture<V> future;
+    Map<String, CompletableFuture<V>> batch = null;
+    boolean windowOpened = false;
+    synchronized (this) {
+      future = pending.get(key);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        pending.put(key, future);
+        if (pending.size() >= maxBatchSize || running == 0) {
+          batch = takePending();
+        } else {
+          windowOpened = pending.size() == 1;
+        }
+      }
+    }
+    if (windowOpened) {
+      batch = awaitWindow();
+    }
+    if (batch != null) {
+      dispatch(batch);
+    }
+    return await(future);
+  }
+
+  private Map<String, CompletableFuture<V>> awaitWindow() {
+    try {
+      TimeUnit.MILLISECONDS.sleep(windowMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return takePending();
+  }
+
+  private V await(CompletableFuture<V> future) {
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedTimeoutException("Interrupted while waiting for batched lookup.", e);
+    } catch (TimeoutException e) {
+      throw new UncheckedTimeoutException("Batched lookup not completed in " + timeoutMillis + "ms.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private synchronized Map<String, CompletableFuture<V>> takePending() {
+    Map<String, CompletableFuture<V>> taken = pending;
+    if (!taken.isEmpty()) {
+      pending = Maps.newLinkedHashMap();
+      running++;
+    }
+    return taken;
+  }
+
+  private synchronized void finished() {
+    running--;
+  }
+
+  private void dispatch(Map<String, CompletableFuture<V>> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      Map<String, V> values = batchFunction.apply(batch.keySet());
+      batch.forEach((key, future) -> future.complete(values.get(key)));
+    } catch (RuntimeException e) {
+      log.error("Batched lookup of {} keys failed.", batch.size(), e);
+      batch.values().forEach(future -> future.completeExceptionally(e));
+    } finally {
+      finished();
+    }
+  }
+}
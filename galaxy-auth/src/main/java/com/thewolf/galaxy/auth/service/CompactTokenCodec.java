@@ -0,0 +1,306 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Charsets;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compact binary encoding of the fixed claim set signed by {@code JwtTokenService}, an alternative to JWT for
+ * access tokens. A token is {@code c1.<payload>.<signature>} with base64url parts, the signature is the HMAC of
+ * everything before the last dot. Payload layout:
+ * <ul>
+ * <li>flags byte: token id, family, authorization claim present and numeric subject</li>
+ * <li>varint issued at in epoch seconds, varint lifetime in seconds</li>
+ * <li>subject: varint for decimal ids, otherwise a string</li>
+ * <li>optional token id, family and authorization claim as strings</li>
+ * </ul>
+ * Strings are a varint of UTF-8 length plus one followed by the bytes, or a zero varint followed by 16 bytes for
+ * canonical UUIDs. Decoded tokens are returned as {@code Claims} named like their JWT counterparts, so the rest of
+ * the pipeline is unaware of the format. Signing inputs never collide with JWS signing inputs, which start with
+ * the encoded header.
+ */
+public class CompactTokenCodec {
+
+  public static final String PREFIX = "c1.";
+
+  private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+  private static final int FLAG_ID = 1;
+
+  private static final int FLAG_FAMILY = 1 << 1;
+
+  private static final int FLAG_AUTHORIZATION = 1 << 2;
+
+  private static final int FLAG_NUMERIC_SUBJECT = 1 << 3;
+
+  private static final int MAX_NUMERIC_SUBJECT_LENGTH = 18;
+
+  private static final int UUID_LENGTH = 36;
+
+  private static final int INITIAL_BUFFER_SIZE = 64;
+
+  private final String algorithm;
+
+  private final byte[] key;
+
+  private final ThreadLocal<Mac> macs;
+
+  /**
+   * Constructor.
+   *
+   * @param signatureAlgorithm HMAC signature algorithm.
+   * @param key                HMAC key.
+   */
+  public CompactTokenCodec(SignatureAlgorithm signatureAlgorithm, byte[] key) {
+    checkNotNull(signatureAlgorithm);
+    checkArgument(signatureAlgorithm.isHmac(), "signatureAlgorithm must be HMAC");
+    checkArgument(key != null && key.length > 0, "key must not be empty");
+    this.algorithm = signatureAlgorithm.getJcaName();
+    this.key = key.clone();
+    this.macs = ThreadLocal.withInitial(this::newMac);
+    // fail fast on unsupported algorithm or key
+    newMac();
+  }
+
+  /**
+   * Check whether token is in compact format.
+   *
+   * @param token token string.
+   * @return true while token has compact prefix.
+   */
+  public static boolean isCompact(String token) {
+    return token.startsWith(PREFIX);
+  }
+
+  /**
+   * Encode and sign claims.
+   *
+   * @param subject       subject (sub).
+   * @param issuedAt      issued at (iat) in epoch seconds.
+   * @param expiration    expiration (exp) in epoch seconds.
+   * @param id            token id (jti), could be null.
+   * @param family        token family, could be null.
+   * @param authorization encoded authorization claim, could be null.
+   * @return compact token.
+   */
+  public String encode(String subject, long issuedAt, long expiration, String id, String family,
+                       String authorization) {
+    checkNotNull(subject);
+    checkArgument(issuedAt >= 0 && expiration >= issuedAt, "invalid token lifetime");
+    boolean numericSubject = isNumeric(subject);
+    int flags = (id != null ? FLAG_ID : 0) | (family != null ? FLAG_FAMILY : 0)
+      | (authorization != null ? FLAG_AUTHORIZATION : 0) | (numericSubject ? FLAG_NUMERIC_SUBJECT : 0);
+    ByteArrayOutputStream payload = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    payload.write(flags);
+    writeVarint(payload, issuedAt);
+    writeVarint(payload, expiration - issuedAt);
+    if (numericSubject) {
+      writeVarint(payload, Long.parseLong(subject));
+    } else {
+      writeString(payload, subject);
+    }
+    if (id != null) {
+      writeString(payload, id);
+    }
+    if (family != null) {
+      writeString(payload, family);
+    }
+    if (authorization != null) {
+      writeString(payload, authorization);
+    }
+    String signingInput = PREFIX + BASE64_URL.encodeToString(payload.toByteArray());
+    return signingInput + '.' + BASE64_URL.encodeToString(sign(signingInput));
+  }
+
+  /**
+   * Verify and decode token.
+   *
+   * @param token compact token.
+   * @return decoded {@code Claims}.
+   * @throws MalformedJwtException while token is not a well formed compact token.
+   * @throws SignatureException    while signature does not match.
+   * @throws ExpiredJwtException   while token is expired.
+   */
+  public Claims decode(String token) {
+    int separator = token.lastIndexOf('.');
+    if (!isCompact(token) || separator < PREFIX.length()) {
+      throw new MalformedJwtException("Malformed compact token.");
+    }
+    String signingInput = token.substring(0, separator);
+    byte[] payload;
+    byte[] signature;
+    try {
+      payload = BASE64_URL_DECODER.decode(signingInput.substring(PREFIX.length()));
+      signature = BASE64_URL_DECODER.decode(token.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      throw new MalformedJwtException("Malformed compact token encoding.", e);
+    }
+    if (!MessageDigest.isEqual(signature, sign(signingInput))) {
+      throw new SignatureException("Compact token signature does not match.");
+    }
+    Claims claims = readClaims(payload);
+    if (claims.getExpiration().getTime() < System.currentTimeMillis()) {
+      throw new ExpiredJwtException(null, claims, "Compact token expired at " + claims.getExpiration() + ".");
+    }
+    return claims;
+  }
+
+  private Claims readClaims(byte[] payload) {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(payload);
+      int flags = buffer.get();
+      long issuedAt = readVarint(buffer);
+      long expiration = issuedAt + readVarint(buffer);
+      Claims claims = new DefaultClaims();
+      claims.setSubject((flags & FLAG_NUMERIC_SUBJECT) != 0 ? Long.toString(readVarint(buffer)) : readString(buffer));
+      claims.setIssuedAt(new Date(TimeUnit.SECONDS.toMillis(issuedAt)));
+      claims.setExpiration(new Date(TimeUnit.SECONDS.toMillis(expiration)));
+      if ((flags & FLAG_ID) != 0) {
+        claims.setId(readString(buffer));
+      }
+      if ((flags & FLAG_FAMILY) != 0) {
+        claims.put(AuthConstants.FAMILY_CLAIM, readString(buffer));
+      }
+      if ((flags & FLAG_AUTHORIZATION) != 0) {
+        claims.put(AuthConstants.AUTHORIZATION_CLAIM, readString(buffer));
+      }
+      if (buffer.hasRemaining()) {
+        throw new MalformedJwtException("Trailing bytes in compact token.");
+      }
+      return claims;
+    } catch (RuntimeException e) {
+      if (e instanceof MalformedJwtException) {
+        throw e;
+      }
+      throw new MalformedJwtException("Malformed compact token payload.", e);
+    }
+  }
+
+  private byte[] sign(String signingInput) {
+    return macs.get().doFinal(signingInput.getBytes(Charsets.US_ASCII));
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(algorithm);
+      mac.init(new SecretKeySpec(key, algorithm));
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to initialize " + algorithm, e);
+    }
+  }
+
+  private static boolean isNumeric(String value) {
+    int length = value.length();
+    if (length == 0 || length > MAX_NUMERIC_SUBJECT_LENGTH || length > 1 && value.charAt(0) == '0') {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String value) {
+    if (value.length() == UUID_LENGTH) {
+      UUID uuid = parseCanonicalUuid(value);
+      if (uuid != null) {
+        writeVarint(out, 0);
+        writeLong(out, uuid.getMostSignificantBits());
+        writeLong(out, uuid.getLeastSignificantBits());
+        return;
+      }
+    }
+    byte[] bytes = value.getBytes(Charsets.UTF_8);
+    writeVarint(out, bytes.length + 1L);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    long header = readVarint(buffer);
+    if (header == 0) {
+      return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+    if (header - 1 > buffer.remaining()) {
+      throw new MalformedJwtException("Compact token string exceeds payload.");
+    }
+    byte[] bytes = new byte[(int) (header - 1)];
+    buffer.get(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+
+  private static UUID parseCanonicalUuid(String value) {
+    try {
+      UUID uuid = UUID.fromString(value);
+      return uuid.toString().equals(value) ? uuid : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void writeLong(ByteArrayOutputStream out, long value) {
+    for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+      out.write((int) (value >>> shift));
+    }
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      out.write((int) (remaining & 0x7F | 0x80));
+      remaining >>>= 7;
+    }
+    out.write((int) remaining);
+  }
+
+  private static long readVarint(ByteBuffer buffer) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new MalformedJwtException("Malformed varint in compact token.");
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Charsets;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lightweight HMAC JWT encoder for the fixed claim set signed by {@code JwtTokenService}.
+ * The encoded header is computed once, claims are written straight into a per-thread buffer instead of going through
+ * a claims map and Jackson, and each thread reuses an initialized {@code Mac}. Output is a regular compact JWS
+ * accepted by any JWT parser.
+ */
+public class HmacJwtEncoder {
+
+  private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
+  private final String algorithm;
+
+  private final byte[] key;
+
+  private final String encodedHeader;
+
+  private final ThreadLocal<Mac> macs;
+
+  private final ThreadLocal<StringBuilder> buffers =
+    ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_SIZE));
+
+  /**
+   * Constructor.
+   *
+   * @param signatureAlgorithm HMAC signature algorithm.
+   * @param key                HMAC key.
+   */
+  public HmacJwtEncoder(SignatureAlgorithm signatureAlgorithm, byte[] key) {
+    checkNotNull(signatureAlgorithm);
+    checkArgument(signatureAlgorithm.isHmac(), "signatureAlgorithm must be HMAC");
+    checkArgument(key != null && key.length > 0, "key must not be empty");
+    this.algorithm = signatureAlgorithm.getJcaName();
+    this.key = key.clone();
+    this.encodedHeader = BASE64_URL.encodeToString(
+      ("{\"alg\":\"" + signatureAlgorithm.getValue() + "\"}").getBytes(Charsets.UTF_8));
+    this.macs = ThreadLocal.withInitial(this::newMac);
+    // fail fast on unsupported algorithm or key
+    newMac();
+  }
+
+  /**
+   * Encode and sign claims.
+   *
+   * @param subject    subject (sub).
+   * @param issuedAt   issued at (iat) in epoch seconds.
+   * @param expiration expiration (exp) in epoch seconds.
+   * @param id         token id (jti), could be null.
+   * @param family     token family, could be null.
+   * @return compact JWS.
+   */
+  public String encode(String subject, long issuedAt, long expiration, String id, String family) {
+    return encode(subject, issuedAt, expiration, id, family, null);
+  }
+
+  /**
+   * Encode and sign claims.
+   *
+   * @param subject       subject (sub).
+   * @param issuedAt      issued at (iat) in epoch seconds.
+   * @param expiration    expiration (exp) in epoch seconds.
+   * @param id            token id (jti), could be null.
+   * @param family        token family, could be null.
+   * @param authorization encoded authorization claim, could be null.
+   * @return compact JWS.
+   */
+  public String encode(String subject, long issuedAt, long expiration, String id, String family,
+                       String authorization) {
+    StringBuilder buffer = buffers.get();
+    buffer.setLength(0);
+    buffer.append("{\"sub\":");
+    appendString(buffer, subject);
+    buffer.append(",\"iat\":").append(issuedAt).append(",\"exp\":").append(expiration);
+    if (id != null) {
+      buffer.append(",\"jti\":");
+      appendString(buffer, id);
+    }
+    if (family != null) {
+      buffer.append(",\"").append(AuthConstants.FAMILY_CLAIM).append("\":");
+      appendString(buffer, family);
+    }
+    if (authorization != null) {
+      buffer.append(",\"").append(AuthConstants.AUTHORIZATION_CLAIM).append("\":");
+      appendString(buffer, authorization);
+    }
+    buffer.append('}');
+    String payload = BASE64_URL.encodeToString(buffer.toString().getBytes(Charsets.UTF_8));
+    buffer.setLength(0);
+    buffer.append(encodedHeader).append('.').append(payload);
+    Mac mac = macs.get();
+    byte[] signature = mac.doFinal(buffer.toString().getBytes(Charsets.US_ASCII));
+    return buffer.append('.').append(BASE64_URL.encodeToString(signature)).toString();
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(algorithm);
+      mac.init(new SecretKeySpec(key, algorithm));
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to initialize " + algorithm, e);
+    }
+  }
+
+  private static void appendString(StringBuilder buffer, String value) {
+    buffer.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          buffer.append("\\\"");
+          break;
+        case '\\':
+          buffer.append("\\\\");
+          break;
+        case '\n':
+          buffer.append("\\n");
+          break;
+        case '\r':
+          buffer.append("\\r");
+          break;
+        case '\t':
+          buffer.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            buffer.append(String.format("\\u%04x", (int) c));
+          } else {
+            buffer.append(c);
+          }
+      }
+    }
+    buffer.append('"');
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.collect.Maps;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In memory {@code RevocationStore} for single node deployments, expired entries are purged while revoking.
+ */
+public class InMemoryRevocationStore implements RevocationStore {
+
+  private static final int PURGE_INTERVAL = 1024;
+
+  private final ConcurrentMap<String, Long> revoked = Maps.newConcurrentMap();
+
+  private final AtomicInteger revocations = new AtomicInteger();
+
+  @Override
+  public boolean isRevoked(String id) {
+    Long expiresAt = revoked.get(id);
+    return expiresAt != null && expiresAt > System.currentTimeMillis();
+  }
+
+  @Override
+  public boolean revoke(String id, long expiresAt) {
+    if (revocations.incrementAndGet() % PURGE_INTERVAL == 0) {
+      purge();
+    }
+    long now = System.currentTimeMillis();
+    Long existing = revoked.putIfAbsent(id, expiresAt);
+    while (existing != null) {
+      if (existing > now) {
+        return false;
+      }
+      if (revoked.replace(id, existing, expiresAt)) {
+        return true;
+      }
+      existing = revoked.putIfAbsent(id, expiresAt);
+    }
+    return true;
+  }
+
+  /**
+   * Drop expired entries.
+   */
+  public void purge() {
+    long now = System.currentTimeMillis();
+    revoked.values().removeIf(expiresAt -> expiresAt <= now);
+  }
+
+  /**
+   * Get number of entries.
+   *
+   * @return entry count.
+   */
+  public int size() {
+    return revoked.size();
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.thewolf.galaxy.auth.support.AuthorizationDecision;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@code AuthorizationAuditSink} inserting every batch with a single JDBC batch statement in one transaction.
+ */
+public class JdbcAuthorizationAuditSink implements AuthorizationAuditSink {
+
+  private static final int MAX_COLUMN_LENGTH = 255;
+
+  private final DataSource dataSource;
+
+  private final String insertSql;
+
+  /**
+   * Constructor.
+   *
+   * @param dataSource an instance of {@code DataSource}.
+   * @param table      audit table name.
+   */
+  public JdbcAuthorizationAuditSink(DataSource dataSource, String table) {
+    checkNotNull(dataSource);
+    checkArgument(table != null && table.matches("[A-Za-z_][A-Za-z0-9_.]*"), "invalid audit table name");
+    this.dataSource = dataSource;
+    this.insertSql = "INSERT INTO " + table
+      + " (decided_at, source, user_id, resource, requirement, allowed) VALUES (?, ?, ?, ?, ?, ?)";
+  }
+
+  @Override
+  public void write(List<AuthorizationDecision> decisions) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+        for (AuthorizationDecision decision : decisions) {
+          statement.setTimestamp(1, new Timestamp(decision.getTimestamp()));
+          statement.setString(2, decision.getSource().name());
+          statement.setString(3, decision.getUserId());
+          statement.setString(4, truncate(decision.getResource()));
+          statement.setString(5, truncate(decision.getRequirement()));
+          statement.setBoolean(6, decision.isAllowed());
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
+  private static String truncate(String value) {
+    return value != null && value.length() > MAX_COLUMN_LENGTH ? value.substring(0, MAX_COLUMN_LENGTH) : value;
+  }
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ResourceUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Asymmetric signing keys loaded from a key store, every private key entry is a key whose alias is the key id (kid).
+ * All keys verify tokens and are published in the JSON Web Key Set as soon as they are loaded, but a new key signs
+ * tokens only once it has been published for the activation delay, so other nodes have reloaded it and consumers
+ * caching the key set have refreshed it before tokens carrying its kid appear. Unless the active kid is configured,
+ * the most recently created key that was loaded and created at least the activation delay ago signs new tokens.
+ * A new key can so be rolled out by adding it to the key store and an old one retired by removing it once its tokens
+ * expired. The key store is reloaded periodically; the key set is serialized once per load.
+ */
+@Slf4j
+public class JwtKeyStore {
+
+  private static final BaseEncoding BASE64_URL = BaseEncoding.base64Url().omitPadding();
+
+  private final SignatureAlgorithm signatureAlgorithm;
+
+  private final String location;
+
+  private final String type;
+
+  private final char[] password;
+
+  private final long reloadIntervalSecond;
+
+  private final String activeKid;
+
+  private final long activationDelayMillis;
+
+  private final Map<String, Long> loadedAt = Maps.newConcurrentMap();
+
+  private volatile Keys keys;
+
+  private ScheduledExecutorService reloader;
+
+  /**
+   * Constructor.
+   *
+   * @param signatureAlgorithm    RSA or elliptic curve signature algorithm.
+   * @param location              key store location, e.g. {@code classpath:jwt.p12} or {@code file:/etc/jwt.p12}.
+   * @param type                  key store type, e.g. {@code PKCS12}.
+   * @param password              key store and key password.
+   * @param reloadIntervalSecond  key store reload interval, 0 to never reload.
+   * @param activeKid             kid of the key signing tokens, null to activate new keys after the delay.
+   * @param activationDelaySecond time a new key is published before signing, at least the reload interval plus the
+   *                              cache lifetime of the key set.
+   */
+  public JwtKeyStore(SignatureAlgorithm signatureAlgorithm, String location, String type, String password,
+                     long reloadIntervalSecond, String activeKid, long activationDelaySecond) {
+    checkNotNull(signatureAlgorithm);
+    checkArgument(signatureAlgorithm.isRsa() || signatureAlgorithm.isEllipticCurve(),
+      "signatureAlgorithm must be RSA or elliptic curve");
+    checkNotNull(location);
+    checkArgument(reloadIntervalSecond >= 0, "reloadIntervalSecond must not be negative");
+    checkArgument(activationDelaySecond >= 0, "activationDelaySecond must not be negative");
+    this.signatureAlgorithm = signatureAlgorithm;
+    this.location = location;
+    this.type = type != null ? type : KeyStore.getDefaultType();
+    this.password = password != null ? password.toCharArray() : new char[0];
+    this.reloadIntervalSecond = reloadIntervalSecond;
+    this.activeKid = activeKid;
+    this.activationDelayMillis = TimeUnit.SECONDS.toMillis(activationDelaySecond);
+  }
+
+  /**
+   * Load key store and schedule reloading.
+   *
+   * @throws IOException              if key store could not be read.
+   * @throws GeneralSecurityException if key store could not be loaded.
+   */
+  @PostConstruct
+  public void init() throws IOException, GeneralSecurityException {
+    this.keys = load();
+    if (reloadIntervalSecond > 0) {
+      reloader = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("jwt-key-store-reloader").setDaemon(true).build());
+      reloader.scheduleWithFixedDelay(this::reload, reloadIntervalSecond, reloadIntervalSecond, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Stop reloading.
+   */
+  @PreDestroy
+  public void destroy() {
+    if (reloader != null) {
+      reloader.shutdownNow();
+    }
+  }
+
+  /**
+   * Reload key store, current keys are kept if loading fails.
+   */
+  public void reload() {
+    try {
+      Keys loaded = load();
+      if (!loaded.getSigningKey().getKid().equals(keys.getSigningKey().getKid())
+        || !loaded.getVerifyingKeys().keySet().equals(keys.getVerifyingKeys().keySet())) {
+        log.info("JWT signing key is now [{}], verifying keys {}.", loaded.getSigningKey().getKid(),
+          loaded.getVerifyingKeys().keySet());
+      }
+      this.keys = loaded;
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      log.error("Failed to reload JWT key store [{}], keeping current keys.", location, e);
+    }
+  }
+
+  /**
+   * Get key signing new tokens.
+   *
+   * @return signing key.
+   */
+  public SigningKey getSigningKey() {
+    return keys.getSigningKey();
+  }
+
+  /**
+   * Get public key by key id.
+   *
+   * @param kid key id.
+   * @return public key or null if unknown.
+   */
+  public PublicKey getPublicKey(String kid) {
+    return kid != null ? keys.getVerifyingKeys().get(kid) : null;
+  }
+
+  /**
+   * Get serialized JSON Web Key Set of all public keys.
+   *
+   * @return JWKS json bytes, shared between callers and must not be modified.
+   */
+  public byte[] getJwks() {
+    return keys.getJwks();
+  }
+
+  private Keys load() throws IOException, GeneralSecurityException {
+    KeyStore keyStore = KeyStore.getInstance(type);
+    try (InputStream inputStream = ResourceUtils.getURL(location).openStream()) {
+      keyStore.load(inputStream, password);
+    }
+    String keyAlgorithm = signatureAlgorithm.isRsa() ? "RSA" : "EC";
+    int curveFieldSize = curveFieldSize(signatureAlgorithm);
+    List<SigningKey> signingKeys = Lists.newArrayList();
+    for (String alias : Collections.list(keyStore.aliases())) {
+      if (!keyStore.isKeyEntry(alias)) {
+        continue;
+      }
+      Key key = keyStore.getKey(alias, password);
+      Certificate certificate = keyStore.getCertificate(alias);
+      if (!(key instanceof PrivateKey) || certificate == null || !keyAlgorithm.equals(key.getAlgorithm())) {
+        log.debug("Skipping key store entry [{}] not usable for {}.", alias, signatureAlgorithm.getValue());
+        continue;
+      }
+      PublicKey publicKey = certificate.getPublicKey();
+      if (publicKey instanceof ECPublicKey
+        && ((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize() != curveFieldSize) {
+        log.warn("Skipping key store entry [{}] not on the curve of {}.", alias, signatureAlgorithm.getValue());
+        continue;
+      }
+      Date createdAt = keyStore.getCreationDate(alias);
+      signingKeys.add(new SigningKey(alias, (PrivateKey) key, publicKey,
+        createdAt != null ? createdAt.getTime() : 0L));
+    }
+    checkState(!signingKeys.isEmpty(), "No %s key found in key store %s", keyAlgorithm, location);
+    signingKeys.sort(Comparator.comparingLong(SigningKey::getCreatedAt).thenComparing(SigningKey::getKid));
+    long now = System.currentTimeMillis();
+    for (SigningKey signingKey : signingKeys) {
+      // keys found by the initial load count as published long ago
+      loadedAt.putIfAbsent(signingKey.getKid(), keys == null ? 0L : now);
+    }
+    Map<String, PublicKey> verifyingKeys = Maps.newLinkedHashMap();
+    List<Map<String, Object>> jwks = Lists.newArrayList();
+    for (SigningKey signingKey : signingKeys) {
+      verifyingKeys.put(signingKey.getKid(), signingKey.getPublicKey());
+      jwks.add(toJwk(signingKey));
+    }
+    loadedAt.keySet().retainAll(verifyingKeys.keySet());
+    return new Keys(selectSigningKey(signingKeys, now), ImmutableMap.copyOf(verifyingKeys),
+      toJson(ImmutableMap.of("keys", jwks)));
+  }
+
+  /**
+   * Select the configured key, otherwise the newest key published and created for the activation delay, otherwise
+   * the current signing key while still loaded, otherwise the oldest key.
+   *
+   * @param signingKeys loaded keys from oldest to newest.
+   * @param now         current time millis.
+   * @return signing key.
+   */
+  private SigningKey selectSigningKey(List<SigningKey> signingKeys, long now) {
+    if (activeKid != null) {
+      return signingKeys.stream().filter(signingKey -> activeKid.equals(signingKey.getKid())).findFirst()
+        .orElseThrow(() -> new IllegalStateException("Active key " + activeKid + " not found in key store "
+          + location));
+    }
+    SigningKey selected = null;
+    for (SigningKey signingKey : signingKeys) {
+      if (signingKey.getCreatedAt() + activationDelayMillis <= now
+        && loadedAt.getOrDefault(signingKey.getKid(), now) + activationDelayMillis <= now) {
+        selected = signingKey;
+      }
+    }
+    if (selected == null && keys != null) {
+      String currentKid = keys.getSigningKey().getKid();
+      selected = signingKeys.stream().filter(signingKey -> currentKid.equals(signingKey.getKid())).findFirst()
+        .orElse(null);
+    }
+    return selected != null ? selected : signingKeys.get(0);
+  }
+
+  /**
+   * Get field size of the curve required by elliptic curve algorithm, P-256, P-384 and P-521 respectively.
+   */
+  private static int curveFieldSize(SignatureAlgorithm signatureAlgorithm) {
+    switch (signatureAlgorithm) {
+      case ES256:
+        return 256;
+      case ES384:
+        return 384;
+      case ES512:
+        return 521;
+      default:
+        return 0;
+    }
+  }
+
+  private Map<String, Object> toJwk(SigningKey signingKey) {
+    Map<String, Object> jwk = Maps.newLinkedHashMap();
+    jwk.put("kid", signingKey.getKid());
+    jwk.put("use", "sig");
+    jwk.put("alg", signatureAlgorithm.getValue());
+    PublicKey publicKey = signingKey.getPublicKey();
+    if (publicKey instanceof RSAPublicKey) {
+      RSAPublicKey rsaPublicKey = (RSAPublicKey) publicKey;
+      jwk.put("kty", "RSA");
+      jwk.put("n", encode(rsaPublicKey.getModulus(), 0));
+      jwk.put("e", encode(rsaPublicKey.getPublicExponent(), 0));
+    } else if (publicKey instanceof ECPublicKey) {
+      ECPublicKey ecPublicKey = (ECPublicKey) publicKey;
+      int fieldSize = ecPublicKey.getParams().getCurve().getField().getFieldSize();
+      int length = (fieldSize + 7) / 8;
+      jwk.put("kty", "EC");
+      jwk.put("crv", "P-" + fieldSize);
+      jwk.put("x", encode(ecPublicKey.getW().getAffineX(), length));
+      jwk.put("y", encode(ecPublicKey.getW().getAffineY(), length));
+    }
+    return jwk;
+  }
+
+  /**
+   * Base64url encode unsigned big-endian bytes, left padded to length.
+   */
+  private static String encode(BigInteger value, int length) {
+    byte[] bytes = value.toByteArray();
+    if (bytes.length > 1 && bytes[0] == 0) {
+      bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+    }
+    if (bytes.length < length) {
+      byte[] padded = new byte[length];
+      System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+      bytes = padded;
+    }
+    return BASE64_URL.encode(bytes);
+  }
+
+  private static byte[] toJson(Object value) {
+    try {
+      return new ObjectMapper().writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Key pair identified by key id.
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class SigningKey {
+
+    private final String kid;
+
+    private final PrivateKey privateKey;
+
+    private final PublicKey publicKey;
+
+    private final long createdAt;
+
+  }
+
+  /**
+   * Immutable snapshot of loaded keys.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class Keys {
+
+    private final SigningKey signingKey;
+
+    private final Map<String, PublicKey> verifyingKeys;
+
+    private final byte[] jwks;
+
+  }
+}
@@ -17,28 +17,45 @@ package com.thewolf.galaxy.auth.service;
 
 import com.google.common.base.Charsets;
 import com.thewolf.galaxy.auth.config.ShiroJwtConfiguration;
+import com.thewolf.galaxy.auth.shiro.authz.AuthorizationClaimsCodec;
+import com.thewolf.galaxy.auth.support.AuthConstants;
 import com.thewolf.galaxy.auth.support.AuthenticatingUser;
 import com.thewolf.galaxy.auth.support.RestToken;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.impl.DefaultClaims;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.shiro.codec.Base64;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
-import java.time.ZonedDateTime;
+import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Token manager provide parse/sign jwt token.
+ * With an RSA or elliptic curve algorithm access tokens are signed by {@code JwtKeyStore} and carry the key id,
+ * refresh tokens are always signed with the HMAC refresh secret.
+ * Refresh tokens carry a token id and a family id, rotation and reuse detection are backed by {@code RevocationStore}.
+ * HMAC tokens are written by {@code HmacJwtEncoder} rather than the jjwt builder.
+ * With an {@code AuthorizationClaimsCodec} access tokens carry the encoded roles and permissions of the user.
+ * With the compact token format HMAC access tokens are written by {@code CompactTokenCodec}, access tokens of both
+ * formats are accepted regardless of the configured format.
  */
 @Slf4j
 public class JwtTokenService implements TokenService {
@@ -46,8 +63,19 @@ public class JwtTokenService implements TokenService {
   @Autowired
   private ShiroJwtConfiguration.JwtConfig jwtConfig;
 
+  @Autowired(required = false)
+  private JwtKeyStore jwtKeyStore;
+
+  @Autowired(required = false)
+  private RevocationStore revocationStore;
+
+  @Autowired(required = false)
+  private AuthorizationClaimsCodec authorizationClaimsCodec;
+
   private SignatureAlgorithm signatureAlgorithm;
 
+  private SignatureAlgorithm refreshSignatureAlgorithm;
+
   private byte[] secretBytes;
 
   private byte[] refreshSecretBytes;
@@ -56,12 +84,25 @@ public class JwtTokenService implements TokenService {
 
   private JwtParser refreshJwtParser;
 
+  private HmacJwtEncoder jwtEncoder;
+
+  private HmacJwtEncoder refreshJwtEncoder;
+
+  private CompactTokenCodec compactTokenCodec;
+
+  private boolean compactAccessTokens;
+
+  @Getter
+  private VerifiedTokenCache verifiedTokenCache;
+
   /**
    * Initialize token service.
    */
   @PostConstruct
   public void init() {
     signatureAlgorithm = SignatureAlgorithm.forName(jwtConfig.getAlgorithm());
+    refreshSignatureAlgorithm = signatureAlgorithm.isHmac()
+      ? signatureAlgorithm : SignatureAlgorithm.forName(AuthConstants.ALGORITHM);
     secretBytes = jwtConfig.getSecret().getBytes(Charsets.UTF_8);
     if (Base64.isBase64(secretBytes)) {
       secretBytes = Base64.decode(secretBytes);
@@ -70,8 +111,29 @@ public class JwtTokenService implements TokenService {
     if (Base64.isBase64(refreshSecretBytes)) {
       refreshSecretBytes = Base64.decode(refreshSecretBytes);
     }
-    jwtParser = Jwts.parser().setSigningKey(secretBytes);
+    if (signatureAlgorithm.isHmac()) {
+      jwtParser = Jwts.parser().setSigningKey(secretBytes);
+      jwtEncoder = new HmacJwtEncoder(signatureAlgorithm, secretBytes);
+      compactTokenCodec = new CompactTokenCodec(signatureAlgorithm, secretBytes);
+    } else {
+      checkState(jwtKeyStore != null, "Key store is required for algorithm %s", signatureAlgorithm.getValue());
+      jwtParser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+          return resolvePublicKey(header);
+        }
+      });
+    }
+    compactAccessTokens = AuthConstants.TOKEN_FORMAT_COMPACT.equals(jwtConfig.getTokenFormat());
+    checkState(!compactAccessTokens || compactTokenCodec != null,
+      "Compact token format requires an HMAC algorithm, got %s", signatureAlgorithm.getValue());
     refreshJwtParser = Jwts.parser().setSigningKey(refreshSecretBytes);
+    refreshJwtEncoder = new HmacJwtEncoder(refreshSignatureAlgorithm, refreshSecretBytes);
+    if (jwtConfig.getVerifiedTokenCacheSize() > 0) {
+      verifiedTokenCache = new VerifiedTokenCache(jwtConfig.getVerifiedTokenCacheSize(),
+        jwtConfig.getExpiresInSecond());
+    }
   }
 
   /**
@@ -86,7 +148,7 @@ public class JwtTokenService implements TokenService {
   }
 
   /**
-   * Parse jwt token.
+   * Parse jwt token, access tokens are served from {@code VerifiedTokenCache} once verified.
    *
    * @param token     jwt token string.
    * @param isRefresh indicate token is fresh token or not.
@@ -94,8 +156,80 @@ public class JwtTokenService implements TokenService {
    */
   public Claims parseToken(@NonNull String token, boolean isRefresh)
     throws ExpiredJwtException, UnsupportedJwtException, MalformedJwtException, SignatureException {
-    JwtParser parser = isRefresh ? refreshJwtParser : jwtParser;
-    return parser.parseClaimsJws(token).getBody();
+    if (isRefresh) {
+      return refreshJwtParser.parseClaimsJws(token).getBody();
+    }
+    if (verifiedTokenCache == null) {
+      return parseAccessToken(token);
+    }
+    Claims claims = verifiedTokenCache.get(token);
+    if (claims == null) {
+      claims = parseAccessToken(token);
+      verifiedTokenCache.put(token, claims);
+    }
+    return claims;
+  }
+
+  /**
+   * Verify access token of either format.
+   *
+   * @param token compact JWS or compact format token.
+   * @return {@code Claims}.
+   */
+  private Claims parseAccessToken(String token) {
+    if (!CompactTokenCodec.isCompact(token)) {
+      return jwtParser.parseClaimsJws(token).getBody();
+    }
+    if (compactTokenCodec == null) {
+      throw new UnsupportedJwtException("Compact tokens are not supported by " + signatureAlgorithm.getValue());
+    }
+    return compactTokenCodec.decode(token);
+  }
+
+  /**
+   * Resolve public key verifying access token by key id, tokens of other algorithms are rejected.
+   *
+   * @param header jws header.
+   * @return public key.
+   */
+  private Key resolvePublicKey(JwsHeader<?> header) {
+    if (!signatureAlgorithm.getValue().equals(header.getAlgorithm())) {
+      throw new SignatureException("Unexpected token algorithm.");
+    }
+    Key key = jwtKeyStore.getPublicKey(header.getKeyId());
+    if (key == null) {
+      throw new SignatureException("Unknown token key id.");
+    }
+    return key;
+  }
+
+  /**
+   * Parse refresh token and mark its token id used, reusing a token revokes its whole family.
+   *
+   * @param refreshToken refresh token string.
+   * @return {@code Claims}.
+   */
+  @Override
+  public Claims useRefreshToken(@NonNull String refreshToken)
+    throws ExpiredJwtException, UnsupportedJwtException, MalformedJwtException, SignatureException {
+    Claims claims = parseToken(refreshToken, true);
+    String family = claims.get(AuthConstants.FAMILY_CLAIM, String.class);
+    if (claims.getId() == null || family == null) {
+      throw new MalformedJwtException("Refresh token without token id or family.");
+    }
+    if (revocationStore == null) {
+      return claims;
+    }
+    if (revocationStore.isRevoked(family)) {
+      throw new JwtException("Refresh token family revoked.");
+    }
+    if (!revocationStore.revoke(claims.getId(), claims.getExpiration().getTime())) {
+      long familyExpiresAt = System.currentTimeMillis() + jwtConfig.getRefreshExpiresInSecond() * 1000;
+      revocationStore.revoke(family, familyExpiresAt);
+      log.warn("Refresh token of user [{}] reused, revoked token family [{}].", claims.getSubject(), family);
+      throw new JwtException("Refresh token reused.");
+    }
+    return claims;
   }
 
   /**
@@ -105,20 +239,31 @@ public class JwtTokenService implements TokenService {
    * @return an instance of {@code JwtToken}.
    */
   public RestToken signToken(AuthenticatingUser authenticatingUser) {
+    return signToken(authenticatingUser, null);
+  }
+
+  /**
+   * Sign token, the refresh token continues the given token family.
+   *
+   * @param authenticatingUser an instance of {@AuthenticatingUser}.
+   * @param family             refresh token family, null to start a new family.
+   * @return an instance of {@code JwtToken}.
+   */
+  public RestToken signToken(AuthenticatingUser authenticatingUser, String family) {
     String subject = authenticatingUser.getId();
     long expiresIn = jwtConfig.getExpiresInSecond();
-    long refreshExpiresIn = jwtConfig.getRefreshExpiresInSecond();
-    ZonedDateTime now = ZonedDateTime.now();
-    ZonedDateTime expiresDateTime = now.plusSeconds(expiresIn);
-    ZonedDateTime refreshExpiresDateTime = now.plusSeconds(refreshExpiresIn);
-    Date nowDate = Date.from(now.toInstant());
-    Claims claims = new DefaultClaims();
-    claims.setSubject(subject);
-    claims.setIssuedAt(nowDate);
-    claims.setExpiration(Date.from(expiresDateTime.toInstant()));
-    String accessToken = Jwts.builder().setClaims(claims).signWith(signatureAlgorithm, secretBytes).compact();
-    claims.setExpiration(Date.from(refreshExpiresDateTime.toInstant()));
-    String refreshToken = Jwts.builder().setClaims(claims).signWith(signatureAlgorithm, refreshSecretBytes).compact();
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    String authorization = authorizationClaimsCodec != null ? authorizationClaimsCodec.encode(subject) : null;
+    String accessToken;
+    if (compactAccessTokens) {
+      accessToken = compactTokenCodec.encode(subject, now, now + expiresIn, null, null, authorization);
+    } else if (jwtEncoder != null) {
+      accessToken = jwtEncoder.encode(subject, now, now + expiresIn, null, null, authorization);
+    } else {
+      accessToken = signWithKeyStore(subject, now, now + expiresIn, authorization);
+    }
+    String refreshToken = refreshJwtEncoder.encode(subject, now, now + jwtConfig.getRefreshExpiresInSecond(),
+      UUID.randomUUID().toString(), family != null ? family : UUID.randomUUID().toString());
     RestToken restToken = new RestToken();
     restToken.setAccessToken(accessToken);
     restToken.setExpiresIn(expiresIn);
@@ -126,4 +271,27 @@ public class JwtTokenService implements TokenService {
     return restToken;
   }
 
+  /**
+   * Sign access token with current key of {@code JwtKeyStore}.
+   *
+   * @param subject       subject.
+   * @param issuedAt      issued at in epoch seconds.
+   * @param expiration    expiration in epoch seconds.
+   * @param authorization encoded authorization claim, could be null.
+   * @return compact JWS.
+   */
+  private String signWithKeyStore(String subject, long issuedAt, long expiration, String authorization) {
+    Claims claims = new DefaultClaims();
+    claims.setSubject(subject);
+    claims.setIssuedAt(new Date(TimeUnit.SECONDS.toMillis(issuedAt)));
+    claims.setExpiration(new Date(TimeUnit.SECONDS.toMillis(expiration)));
+    if (authorization != null) {
+      claims.put(AuthConstants.AUTHORIZATION_CLAIM, authorization);
+    }
+    JwtKeyStore.SigningKey signingKey = jwtKeyStore.getSigningKey();
+    return Jwts.builder().setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid()).setClaims(claims)
+      .signWith(signatureAlgorithm, signingKey.getPrivateKey()).compact();
+  }
+
+
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.thewolf.galaxy.auth.exception.LoginThrottledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Login throttle limiting login attempts per client address and per username, checked before the user lookup and
+ * password hashing so throttled attempts cost neither.
+ */
+@Slf4j
+public class LoginThrottle {
+
+  private final RateLimiter addressRateLimiter;
+
+  private final RateLimiter usernameRateLimiter;
+
+  private final LongAdder addressRejections = new LongAdder();
+
+  private final LongAdder usernameRejections = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param addressRateLimiter  rate limiter keyed by client address.
+   * @param usernameRateLimiter rate limiter keyed by username.
+   */
+  public LoginThrottle(RateLimiter addressRateLimiter, RateLimiter usernameRateLimiter) {
+    checkNotNull(addressRateLimiter);
+    checkNotNull(usernameRateLimiter);
+    this.addressRateLimiter = addressRateLimiter;
+    this.usernameRateLimiter = usernameRateLimiter;
+  }
+
+  /**
+   * Record a login attempt.
+   *
+   * @param username      submitted username.
+   * @param clientAddress client address, could be null.
+   * @throws LoginThrottledException if attempts of the client address or the username exceeded the limit.
+   */
+  public void check(String username, String clientAddress) throws LoginThrottledException {
+    if (clientAddress != null && !addressRateLimiter.tryAcquire(clientAddress)) {
+      addressRejections.increment();
+      log.debug("Login attempt of [{}] throttled by client address [{}].", username, clientAddress);
+      throw new LoginThrottledException();
+    }
+    if (username != null && !usernameRateLimiter.tryAcquire(username.toLowerCase(Locale.ROOT))) {
+      usernameRejections.increment();
+      log.debug("Login attempt of [{}] throttled by username.", username);
+      throw new LoginThrottledException();
+    }
+  }
+
+  /**
+   * Get number of attempts rejected by client address.
+   *
+   * @return rejection count.
+   */
+  public long getAddressRejectionCount() {
+    return addressRejections.sum();
+  }
+
+  /**
+   * Get number of attempts rejected by username.
+   *
+   * @return rejection count.
+   */
+  public long getUsernameRejectionCount() {
+    return usernameRejections.sum();
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thewolf.galaxy.auth.exception.PasswordHashingBusyException;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded executor running password hashing off request threads, so a login storm saturates a fixed number of
+ * hashing threads plus a bounded queue instead of every servlet worker. Work beyond that is rejected immediately.
+ */
+@Slf4j
+public class PasswordHashingExecutor {
+
+  private final ThreadPoolExecutor executor;
+
+  private final long timeoutMillis;
+
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param threads       number of hashing threads.
+   * @param queueCapacity maximum number of hashing tasks waiting for a thread.
+   * @param timeoutMillis maximum time a caller waits for its hashing task.
+   */
+  public PasswordHashingExecutor(int threads, int queueCapacity, long timeoutMillis) {
+    checkArgument(threads > 0, "threads must be positive");
+    checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+    checkArgument(timeoutMillis > 0, "timeoutMillis must be positive");
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity),
+      new ThreadFactoryBuilder().setNameFormat("password-hashing-%d").setDaemon(true).build(),
+      new ThreadPoolExecutor.AbortPolicy());
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Run hashing task and wait for its result.
+   *
+   * @param task hashing task.
+   * @param <T>  result type.
+   * @return task result.
+   * @throws PasswordHashingBusyException if the executor is saturated or the task did not finish in time.
+   */
+  public <T> T execute(Callable<T> task) throws PasswordHashingBusyException {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejections.increment();
+      throw new PasswordHashingBusyException();
+    }
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      rejections.increment();
+      throw new PasswordHashingBusyException();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingBusyException();
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Run hashing task in background if the executor has capacity.
+   *
+   * @param task hashing task.
+   * @return true if task accepted.
+   */
+  public boolean tryExecute(Runnable task) {
+    try {
+      executor.execute(() -> {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          log.warn("Background password hashing task failed.", e);
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejections.increment();
+      return false;
+    }
+  }
+
+  /**
+   * Get number of threads actively hashing.
+   *
+   * @return active thread count.
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Get number of queued hashing tasks.
+   *
+   * @return queued task count.
+   */
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Get number of hashing tasks rejected or timed out.
+   *
+   * @return rejection count.
+   */
+  public long getRejectionCount() {
+    return rejections.sum();
+  }
+
+  /**
+   * Shutdown hashing threads.
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
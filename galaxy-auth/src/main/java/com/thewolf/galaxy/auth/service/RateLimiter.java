@@ -0,0 +1,31 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+/**
+ * Rate limiter admitting a bounded number of attempts per key within a sliding window.
+ */
+public interface RateLimiter {
+
+  /**
+   * Record an attempt and determine whether it is admitted, rejected attempts are recorded as well.
+   *
+   * @param key rate limit key.
+   * @return true if admitted.
+   */
+  boolean tryAcquire(String key);
+
+}
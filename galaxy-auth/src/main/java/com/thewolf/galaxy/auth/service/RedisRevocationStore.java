@@ -0,0 +1,175 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Redis {@code RevocationStore}, every revoked id is a key expiring with the token it refers to.
+ * A local bloom filter of revoked ids answers the common not revoked case without a redis round trip; it is kept in
+ * sync across nodes through redis pub/sub and rebuilt periodically to shed expired ids.
+ */
+@Slf4j
+public class RedisRevocationStore implements RevocationStore, MessageListener {
+
+  public static final String KEY_PREFIX = "galaxy:auth:revoked:";
+
+  public static final String CHANNEL = "galaxy:auth:revoked";
+
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+  private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+    "if redis.call('set', KEYS[1], '1', 'PX', ARGV[1], 'NX') then return 1 else return 0 end", Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+
+  private final int expectedInsertions;
+
+  private final long rebuildIntervalSecond;
+
+  private volatile BloomFilter<CharSequence> bloomFilter;
+
+  private volatile BloomFilter<CharSequence> rebuildingBloomFilter;
+
+  private ScheduledExecutorService rebuilder;
+
+  /**
+   * Constructor.
+   *
+   * @param connectionFactory     redis connection factory.
+   * @param expectedInsertions    expected number of revoked ids alive at the same time.
+   * @param rebuildIntervalSecond bloom filter rebuild interval, 0 to never rebuild.
+   */
+  public RedisRevocationStore(RedisConnectionFactory connectionFactory, int expectedInsertions,
+                              long rebuildIntervalSecond) {
+    checkArgument(expectedInsertions > 0, "expectedInsertions must be positive");
+    checkArgument(rebuildIntervalSecond >= 0, "rebuildIntervalSecond must not be negative");
+    this.redisTemplate = new StringRedisTemplate(connectionFactory);
+    this.expectedInsertions = expectedInsertions;
+    this.rebuildIntervalSecond = rebuildIntervalSecond;
+    this.bloomFilter = newBloomFilter();
+  }
+
+  /**
+   * Load revoked ids and schedule rebuilding.
+   */
+  @PostConstruct
+  public void init() {
+    rebuild();
+    if (rebuildIntervalSecond > 0) {
+      rebuilder = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("revocation-bloom-rebuilder").setDaemon(true).build());
+      rebuilder.scheduleWithFixedDelay(this::rebuild, rebuildIntervalSecond, rebuildIntervalSecond, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Stop rebuilding.
+   */
+  @PreDestroy
+  public void destroy() {
+    if (rebuilder != null) {
+      rebuilder.shutdownNow();
+    }
+  }
+
+  @Override
+  public boolean isRevoked(String id) {
+    if (!bloomFilter.mightContain(id)) {
+      return false;
+    }
+    return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + id));
+  }
+
+  @Override
+  public boolean revoke(String id, long expiresAt) {
+    long ttl = Math.max(expiresAt - System.currentTimeMillis(), 1L);
+    Long result = redisTemplate.execute(REVOKE_SCRIPT, Collections.singletonList(KEY_PREFIX + id),
+      String.valueOf(ttl));
+    boolean revoked = result != null && result == 1L;
+    if (revoked) {
+      add(id);
+      redisTemplate.convertAndSend(CHANNEL, id);
+    }
+    return revoked;
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    add(new String(message.getBody(), Charsets.UTF_8));
+  }
+
+  /**
+   * Rebuild bloom filter from revoked ids in redis, ids revoked meanwhile are added to both filters.
+   */
+  public void rebuild() {
+    BloomFilter<CharSequence> rebuilding = newBloomFilter();
+    rebuildingBloomFilter = rebuilding;
+    try {
+      redisTemplate.execute((RedisCallback<Void>) connection -> {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<byte[]> cursor = connection.scan(options)) {
+          while (cursor.hasNext()) {
+            rebuilding.put(new String(cursor.next(), Charsets.UTF_8).substring(KEY_PREFIX.length()));
+          }
+        } catch (IOException e) {
+          log.warn("Fail to close redis scan cursor", e);
+        }
+        return null;
+      });
+      bloomFilter = rebuilding;
+    } catch (RuntimeException e) {
+      log.error("Failed to rebuild revocation bloom filter, keeping current one.", e);
+    } finally {
+      rebuildingBloomFilter = null;
+    }
+  }
+
+  private void add(String id) {
+    bloomFilter.put(id);
+    BloomFilter<CharSequence> rebuilding = rebuildingBloomFilter;
+    if (rebuilding != null) {
+      rebuilding.put(id);
+    }
+  }
+
+  private BloomFilter<CharSequence> newBloomFilter() {
+    return BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+  }
+}
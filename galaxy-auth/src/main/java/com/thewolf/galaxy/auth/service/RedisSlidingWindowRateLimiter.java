@@ -0,0 +1,91 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Redis sliding window {@code RateLimiter} sharing attempt counts across nodes, one expiring counter per key and
+ * fixed window. Attempts are admitted while redis is unavailable.
+ */
+@Slf4j
+public class RedisSlidingWindowRateLimiter implements RateLimiter {
+
+  public static final String KEY_PREFIX = "galaxy:auth:rate:";
+
+  @SuppressWarnings("unchecked")
+  private static final RedisScript<List<Long>> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+    "local current = redis.call('incr', KEYS[1]) "
+      + "if current == 1 then redis.call('pexpire', KEYS[1], ARGV[1]) end "
+      + "return {current, tonumber(redis.call('get', KEYS[2]) or '0')}", (Class<List<Long>>) (Class<?>) List.class);
+
+  private final StringRedisTemplate redisTemplate;
+
+  private final String name;
+
+  private final long windowMillis;
+
+  private final int limit;
+
+  /**
+   * Constructor.
+   *
+   * @param connectionFactory redis connection factory.
+   * @param name              limiter name, separating counters of limiters sharing keys.
+   * @param windowMillis      window length.
+   * @param limit             maximum attempts per key within a window.
+   */
+  public RedisSlidingWindowRateLimiter(RedisConnectionFactory connectionFactory, String name, long windowMillis,
+                                       int limit) {
+    checkNotNull(name);
+    checkArgument(windowMillis > 0, "windowMillis must be positive");
+    checkArgument(limit > 0, "limit must be positive");
+    this.redisTemplate = new StringRedisTemplate(connectionFactory);
+    this.name = name;
+    this.windowMillis = windowMillis;
+    this.limit = limit;
+  }
+
+  @Override
+  public boolean tryAcquire(String key) {
+    long now = System.currentTimeMillis();
+    long window = now / windowMillis;
+    double overlap = 1.0d - (double) (now % windowMillis) / windowMillis;
+    String prefix = KEY_PREFIX + name + ":" + key + ":";
+    List<Long> counts;
+    try {
+      counts = redisTemplate.execute(INCREMENT_SCRIPT, Arrays.asList(prefix + window, prefix + (window - 1)),
+        String.valueOf(2 * windowMillis));
+    } catch (RuntimeException e) {
+      log.warn("Rate limiter [{}] unavailable, admitting attempt.", name, e);
+      return true;
+    }
+    if (counts == null || counts.size() != 2) {
+      return true;
+    }
+    return counts.get(1) * overlap + counts.get(0) - 1 < limit;
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+/**
+ * Store of revoked token ids (jti) and token family ids, entries are kept until the tokens they refer to expire.
+ */
+public interface RevocationStore {
+
+  /**
+   * Determine whether id is revoked.
+   *
+   * @param id token id or token family id.
+   * @return true if revoked.
+   */
+  boolean isRevoked(String id);
+
+  /**
+   * Revoke id atomically.
+   *
+   * @param id        token id or token family id.
+   * @param expiresAt epoch millis after which the entry may be dropped.
+   * @return true if newly revoked, false if it has been revoked already.
+   */
+  boolean revoke(String id, long expiresAt);
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.thewolf.galaxy.auth.support.AuthorizationDecision;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@code AuthorizationAuditSink} appending tab separated lines to a local file, which is rolled over to
+ * {@code <file>.1 .. <file>.<maxFiles>} once it exceeds the size limit.
+ */
+@Slf4j
+public class RollingFileAuthorizationAuditSink implements AuthorizationAuditSink {
+
+  public static final String FILE_NAME = "auth-audit.log";
+
+  private final Path file;
+
+  private final long maxFileBytes;
+
+  private final int maxFiles;
+
+  private BufferedWriter writer;
+
+  private long fileBytes;
+
+  /**
+   * Constructor.
+   *
+   * @param directory    directory of audit files, created while absent.
+   * @param maxFileBytes size that triggers rolling over.
+   * @param maxFiles     number of rolled files kept.
+   */
+  public RollingFileAuthorizationAuditSink(String directory, long maxFileBytes, int maxFiles) {
+    checkNotNull(directory);
+    checkArgument(maxFileBytes > 0, "maxFileBytes must be positive");
+    checkArgument(maxFiles > 0, "maxFiles must be positive");
+    this.file = Paths.get(directory, FILE_NAME);
+    this.maxFileBytes = maxFileBytes;
+    this.maxFiles = maxFiles;
+  }
+
+  @Override
+  public void write(List<AuthorizationDecision> decisions) throws IOException {
+    if (writer == null) {
+      open();
+    }
+    StringBuilder lines = new StringBuilder(decisions.size() * 128);
+    for (AuthorizationDecision decision : decisions) {
+      lines.append(Instant.ofEpochMilli(decision.getTimestamp())).append('\t')
+        .append(decision.getSource()).append('\t')
+        .append(decision.isAllowed() ? "ALLOW" : "DENY").append('\t');
+      appendField(lines, decision.getUserId()).append('\t');
+      appendField(lines, decision.getResource()).append('\t');
+      appendField(lines, decision.getRequirement()).append('\n');
+    }
+    String text = lines.toString();
+    writer.write(text);
+    writer.flush();
+    fileBytes += text.getBytes(StandardCharsets.UTF_8).length;
+    if (fileBytes >= maxFileBytes) {
+      rollOver();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.close();
+    } catch (IOException e) {
+      log.warn("Failed to close audit file {}.", file, e);
+    }
+    writer = null;
+  }
+
+  private void open() throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, StandardOpenOption.CREATE,
+      StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+    fileBytes = Files.size(file);
+  }
+
+  private void rollOver() throws IOException {
+    close();
+    Files.deleteIfExists(rolled(maxFiles));
+    for (int i = maxFiles - 1; i > 0; i--) {
+      Path source = rolled(i);
+      if (Files.exists(source)) {
+        Files.move(source, rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private Path rolled(int index) {
+    return file.resolveSibling(FILE_NAME + "." + index);
+  }
+
+  private static StringBuilder appendField(StringBuilder builder, String value) {
+    if (value == null) {
+      return builder.append('-');
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\t' || c == '\n' || c == '\r') {
+        builder.append(' ');
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder;
+  }
+}
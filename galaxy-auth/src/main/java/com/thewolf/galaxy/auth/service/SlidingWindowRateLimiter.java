@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In memory sliding window {@code RateLimiter}. The attempt count of a key is estimated from the counts of the
+ * current and the previous fixed window, weighted by how much of the previous window still overlaps the sliding one.
+ * Both counts and the window index are packed into one {@code AtomicLong} per key and updated by CAS.
+ */
+public class SlidingWindowRateLimiter implements RateLimiter {
+
+  private static final int COUNT_BITS = 20;
+
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  private static final long WINDOW_MASK = (1L << (Long.SIZE - 2 * COUNT_BITS)) - 1;
+
+  private final long windowMillis;
+
+  private final int limit;
+
+  private final Cache<String, AtomicLong> counters;
+
+  /**
+   * Constructor.
+   *
+   * @param windowMillis window length.
+   * @param limit        maximum attempts per key within a window.
+   * @param maximumKeys  maximum number of tracked keys.
+   */
+  public SlidingWindowRateLimiter(long windowMillis, int limit, long maximumKeys) {
+    checkArgument(windowMillis > 0, "windowMillis must be positive");
+    checkArgument(limit > 0 && limit < COUNT_MASK, "limit must be positive and less than %s", COUNT_MASK);
+    checkArgument(maximumKeys > 0, "maximumKeys must be positive");
+    this.windowMillis = windowMillis;
+    this.limit = limit;
+    this.counters = CacheBuilder.newBuilder()
+      .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+      .maximumSize(maximumKeys)
+      .expireAfterAccess(2 * windowMillis, TimeUnit.MILLISECONDS)
+      .build();
+  }
+
+  @Override
+  public boolean tryAcquire(String key) {
+    AtomicLong counter = counter(key);
+    long now = System.currentTimeMillis();
+    long window = (now / windowMillis) & WINDOW_MASK;
+    double overlap = 1.0d - (double) (now % windowMillis) / windowMillis;
+    while (true) {
+      long state = counter.get();
+      long stateWindow = state >>> (2 * COUNT_BITS);
+      long current = (state >>> COUNT_BITS) & COUNT_MASK;
+      long previous = state & COUNT_MASK;
+      if (stateWindow != window) {
+        previous = stateWindow == ((window - 1) & WINDOW_MASK) ? current : 0L;
+        current = 0L;
+      }
+      boolean admitted = previous * overlap + current < limit;
+      long next = (window << (2 * COUNT_BITS)) | (Math.min(current + 1, COUNT_MASK) << COUNT_BITS) | previous;
+      if (counter.compareAndSet(state, next)) {
+        return admitted;
+      }
+    }
+  }
+
+  private AtomicLong counter(String key) {
+    AtomicLong counter = counters.getIfPresent(key);
+    if (counter != null) {
+      return counter;
+    }
+    try {
+      return counters.get(key, AtomicLong::new);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
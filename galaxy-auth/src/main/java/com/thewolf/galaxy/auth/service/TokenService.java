@@ -49,4 +49,22 @@ public interface TokenService {
    * @return an instance of {@code RestToken} which may contain access_token, refresh_token etc.
    */
   RestToken signToken(AuthenticatingUser authenticatingUser);
+
+  /**
+   * Sign token with {@code AuthenticatingUser}, the refresh token continues the given token family.
+   *
+   * @param authenticatingUser an instance of {@AuthenticatingUser}.
+   * @param family             refresh token family, null to start a new family.
+   * @return an instance of {@code RestToken} which may contain access_token, refresh_token etc.
+   */
+  RestToken signToken(AuthenticatingUser authenticatingUser, String family);
+
+  /**
+   * Parse refresh token and mark it used, every refresh token could be used only once. Using a refresh token again
+   * revokes every refresh token of its family.
+   *
+   * @param refreshToken refresh token string.
+   * @return parsed refresh token payload.
+   */
+  Map<String, Object> useRefreshToken(String refreshToken);
 }
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.service;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded cache of already verified tokens, keyed by the SHA-256 digest of the compact token.
+ * Entries never outlive the expiration of the token they were parsed from.
+ * Cached {@code Claims} are shared between callers and must not be modified.
+ */
+public class VerifiedTokenCache {
+
+  private static final HashFunction DIGEST = Hashing.sha256();
+
+  private final Cache<HashCode, Entry> cache;
+
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize       maximum number of cached tokens.
+   * @param maxLifetimeSecond upper bound of token lifetime, entries are dropped after this anyway.
+   */
+  public VerifiedTokenCache(long maximumSize, long maxLifetimeSecond) {
+    checkArgument(maximumSize > 0, "maximumSize must be positive");
+    checkArgument(maxLifetimeSecond > 0, "maxLifetimeSecond must be positive");
+    this.cache = CacheBuilder.newBuilder()
+      .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+      .maximumSize(maximumSize)
+      .expireAfterWrite(maxLifetimeSecond, TimeUnit.SECONDS)
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * Get verified claims of token.
+   *
+   * @param token compact token string.
+   * @return cached {@code Claims} or null while absent or expired.
+   */
+  public Claims get(String token) {
+    HashCode key = digest(token);
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.getExpiresAt() <= System.currentTimeMillis()) {
+      cache.invalidate(key);
+      expirations.increment();
+      return null;
+    }
+    return entry.getClaims();
+  }
+
+  /**
+   * Cache verified claims of token, tokens without expiration are not cached.
+   *
+   * @param token  compact token string.
+   * @param claims verified claims.
+   */
+  public void put(String token, Claims claims) {
+    Date expiration = claims.getExpiration();
+    if (expiration == null) {
+      return;
+    }
+    cache.put(digest(token), new Entry(claims, expiration.getTime()));
+  }
+
+  /**
+   * Discard all cached tokens.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Get approximate number of cached tokens.
+   *
+   * @return cached token count.
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Get hit count, excluding tokens found expired.
+   *
+   * @return hit count.
+   */
+  public long hitCount() {
+    return cache.stats().hitCount() - expirations.sum();
+  }
+
+  /**
+   * Get miss count, including tokens found expired.
+   *
+   * @return miss count.
+   */
+  public long missCount() {
+    return cache.stats().missCount() + expirations.sum();
+  }
+
+  /**
+   * Get eviction count, including evictions caused by size pressure and token expiry.
+   *
+   * @return eviction count.
+   */
+  public long evictionCount() {
+    return cache.stats().evictionCount() + expirations.sum();
+  }
+
+  private static HashCode digest(String token) {
+    return DIGEST.hashString(token, Charsets.US_ASCII);
+  }
+
+  /**
+   * Cache entry.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class Entry {
+
+    private final Claims claims;
+
+    private final long expiresAt;
+
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.apikey.filter.authc;
+
+import com.google.common.base.Strings;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.FailureCause;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.Stage;
+import com.thewolf.galaxy.auth.shiro.authc.AuthenticationUnavailableException;
+import com.thewolf.galaxy.auth.support.AuthConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.IncorrectCredentialsException;
+import org.apache.shiro.web.filter.authc.AuthenticatingFilter;
+import org.apache.shiro.web.util.WebUtils;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * API key authenticating filter that will extract api key from header and passed wrapped authentication token to real
+ * realm. Requests without api key are rejected.
+ */
+@Slf4j
+public class ApiKeyAuthenticationFilter extends AuthenticatingFilter {
+
+  @Override
+  protected AuthenticationToken createToken(ServletRequest servletRequest, ServletResponse servletResponse) {
+    String apiKey = getApiKey(servletRequest);
+    if (Strings.isNullOrEmpty(apiKey)) {
+      AuthMetrics.shared().fail(Stage.TOKEN, FailureCause.MISSING);
+      throw new IncorrectCredentialsException("Invalid api key.");
+    }
+    return new ApiKeyAuthenticationToken(apiKey);
+  }
+
+  @Override
+  protected boolean isAccessAllowed(ServletRequest request, ServletResponse response, Object mappedValue) {
+    return getSubject(request, response).isAuthenticated();
+  }
+
+  @Override
+  protected boolean onAccessDenied(ServletRequest servletRequest, ServletResponse servletResponse)
+    throws Exception {
+    if (Strings.isNullOrEmpty(getApiKey(servletRequest))) {
+      AuthMetrics.shared().fail(Stage.TOKEN, FailureCause.MISSING);
+      return onLoginFailure(servletResponse);
+    }
+    log.debug("Attempting to execute login with api key header");
+    return executeLogin(servletRequest, servletResponse);
+  }
+
+  @Override
+  protected boolean onLoginFailure(AuthenticationToken token, AuthenticationException e,
+                                   ServletRequest request, ServletResponse response) {
+    if (e instanceof AuthenticationUnavailableException) {
+      WebUtils.toHttp(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return false;
+    }
+    return onLoginFailure(response);
+  }
+
+  /**
+   * On login fail.
+   *
+   * @param response servlet response.
+   * @return boolean value indicate login fail or not.
+   */
+  protected boolean onLoginFailure(ServletResponse response) {
+    HttpServletResponse httpResponse = WebUtils.toHttp(response);
+    httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    return false;
+  }
+
+  /**
+   * Get api key header.
+   *
+   * @param request servlet request.
+   * @return api key or null while absent.
+   */
+  protected String getApiKey(ServletRequest request) {
+    return WebUtils.toHttp(request).getHeader(AuthConstants.API_KEY_HEADER);
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.apikey.filter.authc;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.shiro.authc.AuthenticationToken;
+
+/**
+ * API key authentication token implementation.
+ */
+@Getter
+@AllArgsConstructor
+public class ApiKeyAuthenticationToken implements AuthenticationToken {
+
+  private static final long serialVersionUID = -3389174416937311283L;
+
+  private final String apiKey;
+
+  @Override
+  public Object getPrincipal() {
+    return apiKey;
+  }
+
+  @Override
+  public Object getCredentials() {
+    return apiKey;
+  }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authc;
+
+import org.apache.shiro.authc.AuthenticationException;
+
+/**
+ * Authentication exception thrown while credentials could not be checked for a backing store is unavailable or too
+ * slow, answered with 503 instead of 401 by authenticating filters.
+ */
+public class AuthenticationUnavailableException extends AuthenticationException {
+
+  /**
+   * Constructor.
+   *
+   * @param message error message.
+   * @param cause   underlying exception.
+   */
+  public AuthenticationUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
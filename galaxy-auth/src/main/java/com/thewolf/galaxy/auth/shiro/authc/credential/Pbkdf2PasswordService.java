@@ -0,0 +1,197 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authc.credential;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.io.BaseEncoding;
+import lombok.Getter;
+import org.apache.shiro.authc.credential.DefaultPasswordService;
+import org.apache.shiro.authc.credential.PasswordService;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * PBKDF2 {@code PasswordService} implementation on top of the JDK {@code SecretKeyFactory}.
+ * Passwords are encrypted as {@code $pbkdf2$<algorithm>$<iterations>$<base64 salt>$<base64 hash>}; passwords in
+ * any other format are verified by a legacy {@code PasswordService}, by default shiro's {@code DefaultPasswordService},
+ * and reported by {@link #needsRehash(String)} so they get upgraded on next login.
+ */
+public class Pbkdf2PasswordService implements RehashablePasswordService {
+
+  public static final String DEFAULT_ALGORITHM = "PBKDF2WithHmacSHA256";
+
+  public static final int DEFAULT_ITERATIONS = 27500;
+
+  public static final int DEFAULT_SALT_LENGTH = 16;
+
+  public static final int DEFAULT_KEY_LENGTH = 256;
+
+  private static final String PREFIX = "$pbkdf2$";
+
+  private static final char SEPARATOR = '$';
+
+  private static final BaseEncoding BASE64 = BaseEncoding.base64();
+
+  @Getter
+  private final String algorithm;
+
+  @Getter
+  private final int iterations;
+
+  @Getter
+  private final int saltLength;
+
+  @Getter
+  private final int keyLength;
+
+  private final PasswordService legacyPasswordService;
+
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  /**
+   * Constructor with default parameters.
+   */
+  public Pbkdf2PasswordService() {
+    this(DEFAULT_ALGORITHM, DEFAULT_ITERATIONS, DEFAULT_SALT_LENGTH, DEFAULT_KEY_LENGTH,
+      new DefaultPasswordService());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param algorithm             {@code SecretKeyFactory} algorithm, e.g. PBKDF2WithHmacSHA256.
+   * @param iterations            iteration count.
+   * @param saltLength            salt length in bytes.
+   * @param keyLength             derived key length in bits.
+   * @param legacyPasswordService {@code PasswordService} verifying passwords in other formats, could be null.
+   */
+  public Pbkdf2PasswordService(String algorithm, int iterations, int saltLength, int keyLength,
+                               PasswordService legacyPasswordService) {
+    checkNotNull(algorithm);
+    checkArgument(iterations > 0, "iterations must be positive");
+    checkArgument(saltLength > 0, "saltLength must be positive");
+    checkArgument(keyLength > 0 && keyLength % Byte.SIZE == 0, "keyLength must be a positive multiple of 8");
+    this.algorithm = algorithm;
+    this.iterations = iterations;
+    this.saltLength = saltLength;
+    this.keyLength = keyLength;
+    this.legacyPasswordService = legacyPasswordService;
+    // fail fast on unsupported algorithm
+    derive(algorithm, "".toCharArray(), new byte[saltLength], 1, Byte.SIZE);
+  }
+
+  @Override
+  public String encryptPassword(Object plaintextPassword) throws IllegalArgumentException {
+    byte[] salt = new byte[saltLength];
+    secureRandom.nextBytes(salt);
+    byte[] hash = derive(algorithm, toChars(plaintextPassword), salt, iterations, keyLength);
+    return PREFIX + algorithm + SEPARATOR + iterations + SEPARATOR + BASE64.encode(salt) + SEPARATOR
+      + BASE64.encode(hash);
+  }
+
+  @Override
+  public boolean passwordsMatch(Object submittedPlaintext, String encrypted) {
+    if (encrypted == null) {
+      return false;
+    }
+    if (!encrypted.startsWith(PREFIX)) {
+      return legacyPasswordService != null && legacyPasswordService.passwordsMatch(submittedPlaintext, encrypted);
+    }
+    Parsed parsed = parse(encrypted);
+    if (parsed == null) {
+      return false;
+    }
+    byte[] hash = derive(parsed.algorithm, toChars(submittedPlaintext), parsed.salt, parsed.iterations,
+      parsed.hash.length * Byte.SIZE);
+    return MessageDigest.isEqual(hash, parsed.hash);
+  }
+
+  @Override
+  public boolean needsRehash(String encrypted) {
+    if (encrypted == null || !encrypted.startsWith(PREFIX)) {
+      return true;
+    }
+    Parsed parsed = parse(encrypted);
+    return parsed == null || !algorithm.equals(parsed.algorithm) || iterations != parsed.iterations
+      || saltLength != parsed.salt.length || keyLength != parsed.hash.length * Byte.SIZE;
+  }
+
+  private static Parsed parse(String encrypted) {
+    List<String> parts = Splitter.on(SEPARATOR).splitToList(encrypted.substring(PREFIX.length()));
+    if (parts.size() != 4) {
+      return null;
+    }
+    try {
+      Parsed parsed = new Parsed(parts.get(0), Integer.parseInt(parts.get(1)), BASE64.decode(parts.get(2)),
+        BASE64.decode(parts.get(3)));
+      return parsed.iterations > 0 && parsed.salt.length > 0 && parsed.hash.length > 0 ? parsed : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static byte[] derive(String algorithmName, char[] password, byte[] salt, int iterationCount, int length) {
+    PBEKeySpec spec = new PBEKeySpec(password, salt, iterationCount, length);
+    try {
+      return SecretKeyFactory.getInstance(algorithmName).generateSecret(spec).getEncoded();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to derive password hash with " + algorithmName, e);
+    } finally {
+      spec.clearPassword();
+    }
+  }
+
+  private static char[] toChars(Object plaintextPassword) {
+    checkArgument(plaintextPassword != null, "plaintextPassword must not be null");
+    if (plaintextPassword instanceof char[]) {
+      return (char[]) plaintextPassword;
+    }
+    if (plaintextPassword instanceof byte[]) {
+      return new String((byte[]) plaintextPassword, Charsets.UTF_8).toCharArray();
+    }
+    return plaintextPassword.toString().toCharArray();
+  }
+
+  /**
+   * Parsed encrypted password.
+   */
+  private static class Parsed {
+
+    private final String algorithm;
+
+    private final int iterations;
+
+    private final byte[] salt;
+
+    private final byte[] hash;
+
+    Parsed(String algorithm, int iterations, byte[] salt, byte[] hash) {
+      this.algorithm = algorithm;
+      this.iterations = iterations;
+      this.salt = salt;
+      this.hash = hash;
+    }
+  }
+}
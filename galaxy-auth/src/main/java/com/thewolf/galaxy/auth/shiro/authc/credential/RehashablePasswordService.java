@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authc.credential;
+
+import org.apache.shiro.authc.credential.PasswordService;
+
+/**
+ * {@code PasswordService} able to tell whether a stored password should be encrypted again, e.g. after hashing
+ * parameters changed.
+ */
+public interface RehashablePasswordService extends PasswordService {
+
+  /**
+   * Determine whether encrypted password was not produced with current hashing parameters.
+   *
+   * @param encrypted encrypted password.
+   * @return true while password should be encrypted again.
+   */
+  boolean needsRehash(String encrypted);
+
+}
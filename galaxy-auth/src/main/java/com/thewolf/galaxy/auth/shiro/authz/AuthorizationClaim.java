@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authz;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * Secondary principal carrying the encoded authorization claim of the token the subject authenticated with.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class AuthorizationClaim implements Serializable {
+
+  private static final long serialVersionUID = 2270427418296418522L;
+
+  private final String value;
+
+  @Override
+  public String toString() {
+    return value;
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authz;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.thewolf.galaxy.auth.support.AuthenticatingFacade;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Codec of self-contained authorization claims, {@code <dictionary version>.<role bitmap>.<permission bitmap>}
+ * with bitmaps indexed by {@code PermissionDictionary}. The dictionary is reloaded from
+ * {@code AuthenticatingFacade} periodically; claims encoded against the current or the previous dictionary version
+ * decode, older ones don't so callers fall back to the facade.
+ */
+@Slf4j
+public class AuthorizationClaimsCodec {
+
+  private static final BaseEncoding BASE64_URL = BaseEncoding.base64Url().omitPadding();
+
+  private static final char SEPARATOR = '.';
+
+  private static final long DECODED_CACHE_SIZE = 10000;
+
+  private final AuthenticatingFacade authenticatingFacade;
+
+  private final long refreshIntervalSecond;
+
+  private final Cache<String, CompiledAuthorizationInfo> decoded = CacheBuilder.newBuilder()
+    .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+    .maximumSize(DECODED_CACHE_SIZE)
+    .build();
+
+  private volatile PermissionDictionary dictionary;
+
+  private volatile PermissionDictionary previousDictionary;
+
+  private ScheduledExecutorService refresher;
+
+  /**
+   * Constructor.
+   *
+   * @param authenticatingFacade  an instance of {@code AuthenticatingFacade}.
+   * @param refreshIntervalSecond dictionary reload interval, 0 to never reload.
+   */
+  public AuthorizationClaimsCodec(AuthenticatingFacade authenticatingFacade, long refreshIntervalSecond) {
+    checkNotNull(authenticatingFacade);
+    checkArgument(refreshIntervalSecond >= 0, "refreshIntervalSecond must not be negative");
+    this.authenticatingFacade = authenticatingFacade;
+    this.refreshIntervalSecond = refreshIntervalSecond;
+  }
+
+  /**
+   * Load dictionary and schedule reloading.
+   */
+  @PostConstruct
+  public void init() {
+    refresh();
+    if (refreshIntervalSecond > 0) {
+      refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("permission-dictionary-refresher").setDaemon(true).build());
+      refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalSecond, refreshIntervalSecond,
+        TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Stop reloading.
+   */
+  @PreDestroy
+  public void destroy() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+    }
+  }
+
+  /**
+   * Reload dictionary, current dictionary is kept if loading fails.
+   */
+  public void refresh() {
+    try {
+      PermissionDictionary loaded = new PermissionDictionary(authenticatingFacade.findAllRoles(),
+        authenticatingFacade.findAllPermissions());
+      PermissionDictionary current = dictionary;
+      if (current == null || !current.getVersion().equals(loaded.getVersion())) {
+        log.info("Permission dictionary version is now [{}].", loaded.getVersion());
+        previousDictionary = current;
+        dictionary = loaded;
+      }
+    } catch (RuntimeException e) {
+      log.error("Failed to reload permission dictionary, keeping current one.", e);
+    }
+  }
+
+  /**
+   * Encode roles and permissions of user.
+   *
+   * @param userId user id.
+   * @return encoded claim or null if roles or permissions are not in the dictionary.
+   */
+  public String encode(String userId) {
+    PermissionDictionary current = dictionary;
+    if (current == null) {
+      return null;
+    }
+    BitSet roles = current.encodeRoles(authenticatingFacade.findRolesByUserId(userId));
+    BitSet permissions = current.encodePermissions(authenticatingFacade.findPermissionsByUserId(userId));
+    if (roles == null || permissions == null) {
+      log.debug("Roles or permissions of user [{}] not in permission dictionary [{}].", userId,
+        current.getVersion());
+      return null;
+    }
+    return current.getVersion() + SEPARATOR + BASE64_URL.encode(roles.toByteArray()) + SEPARATOR
+      + BASE64_URL.encode(permissions.toByteArray());
+  }
+
+  /**
+   * Decode claim into authorization info, decoded info is shared and must not be modified.
+   *
+   * @param claim encoded claim.
+   * @return authorization info or null if claim is invalid or its dictionary version is stale.
+   */
+  public CompiledAuthorizationInfo decode(String claim) {
+    CompiledAuthorizationInfo info = decoded.getIfPresent(claim);
+    if (info == null) {
+      info = doDecode(claim);
+      if (info != null) {
+        decoded.put(claim, info);
+      }
+    }
+    return info;
+  }
+
+  private CompiledAuthorizationInfo doDecode(String claim) {
+    List<String> parts = Splitter.on(SEPARATOR).splitToList(claim);
+    if (parts.size() != 3) {
+      return null;
+    }
+    PermissionDictionary matched = match(parts.get(0));
+    if (matched == null) {
+      return null;
+    }
+    try {
+      Set<String> roles = matched.decodeRoles(BitSet.valueOf(BASE64_URL.decode(parts.get(1))));
+      Set<String> permissions = matched.decodePermissions(BitSet.valueOf(BASE64_URL.decode(parts.get(2))));
+      return roles != null && permissions != null ? new CompiledAuthorizationInfo(roles, permissions) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private PermissionDictionary match(String version) {
+    PermissionDictionary current = dictionary;
+    if (current != null && current.getVersion().equals(version)) {
+      return current;
+    }
+    PermissionDictionary previous = previousDictionary;
+    return previous != null && previous.getVersion().equals(version) ? previous : null;
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authz;
+
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * {@code SimpleAuthorizationInfo} that lazily compiles its string permissions into {@code CompiledPermissions}.
+ * The compiled form is not serialized and gets rebuilt once per cached instance.
+ */
+public class CompiledAuthorizationInfo extends SimpleAuthorizationInfo {
+
+  private static final long serialVersionUID = 5325016245734128763L;
+
+  private transient volatile CompiledPermissions compiledPermissions;
+
+  /**
+   * Constructor.
+   *
+   * @param roles       roles.
+   * @param permissions string permissions.
+   */
+  public CompiledAuthorizationInfo(Set<String> roles, Set<String> permissions) {
+    super(roles);
+    setStringPermissions(permissions);
+  }
+
+  /**
+   * Get compiled string permissions.
+   *
+   * @return compiled permissions.
+   */
+  public CompiledPermissions getCompiledPermissions() {
+    CompiledPermissions compiled = compiledPermissions;
+    if (compiled == null) {
+      compiled = CompiledPermissions.compile(getStringPermissions());
+      compiledPermissions = compiled;
+    }
+    return compiled;
+  }
+
+  @Override
+  public void setStringPermissions(Set<String> stringPermissions) {
+    super.setStringPermissions(stringPermissions);
+    compiledPermissions = null;
+  }
+
+  @Override
+  public void addStringPermission(String permission) {
+    super.addStringPermission(permission);
+    compiledPermissions = null;
+  }
+
+  @Override
+  public void addStringPermissions(Collection<String> permissions) {
+    super.addStringPermissions(permissions);
+    compiledPermissions = null;
+  }
+}
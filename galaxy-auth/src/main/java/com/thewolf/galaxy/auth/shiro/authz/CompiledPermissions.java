@@ -0,0 +1,227 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authz;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * String permissions of one user compiled into per-part token bitsets, answering the same question as scanning
+ * {@code WildcardPermission#implies} over every permission held, in time independent of the number of permissions
+ * for memoized checks and proportional to permission count / 64 otherwise.
+ * Bit {@code j} of every bitset stands for the j-th permission held.
+ */
+@Slf4j
+public final class CompiledPermissions {
+
+  private static final String WILDCARD_TOKEN = "*";
+
+  private static final int MAX_MEMOIZED_DECISIONS = 1024;
+
+  private static final int MAX_MEMOIZED_QUERIES = 4096;
+
+  private static final Interner<String> TOKENS = Interners.newWeakInterner();
+
+  private static final ConcurrentMap<String, List<Set<String>>> QUERIES = Maps.newConcurrentMap();
+
+  private final int words;
+
+  private final long[] all;
+
+  private final Level[] levels;
+
+  private final long[][] tailWildcards;
+
+  private final ConcurrentMap<String, Boolean> decisions = Maps.newConcurrentMap();
+
+  private CompiledPermissions(List<List<Set<String>>> permissions) {
+    int size = permissions.size();
+    int maxLength = 0;
+    for (List<Set<String>> parts : permissions) {
+      maxLength = Math.max(maxLength, parts.size());
+    }
+    this.words = (size + 63) >>> 6;
+    this.all = new long[words];
+    for (int j = 0; j < size; j++) {
+      set(all, j);
+    }
+    this.levels = new Level[maxLength];
+    for (int i = 0; i < maxLength; i++) {
+      levels[i] = new Level(words);
+    }
+    this.tailWildcards = new long[maxLength + 1][];
+    for (int q = 0; q <= maxLength; q++) {
+      tailWildcards[q] = all.clone();
+    }
+    for (int j = 0; j < size; j++) {
+      List<Set<String>> parts = permissions.get(j);
+      for (int i = 0; i < maxLength; i++) {
+        Level level = levels[i];
+        if (i >= parts.size()) {
+          set(level.ended, j);
+          continue;
+        }
+        Set<String> part = parts.get(i);
+        if (part.contains(WILDCARD_TOKEN)) {
+          set(level.wildcard, j);
+        } else {
+          // a permission longer than the query is only implied while every extra part is a wildcard
+          for (int q = 0; q <= i; q++) {
+            clear(tailWildcards[q], j);
+          }
+        }
+        for (String token : part) {
+          set(level.tokens.computeIfAbsent(TOKENS.intern(token), t -> new long[words]), j);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compile string permissions, permissions that {@code WildcardPermission} can not parse are ignored.
+   *
+   * @param permissions string permissions.
+   * @return compiled permissions.
+   */
+  public static CompiledPermissions compile(Collection<String> permissions) {
+    List<List<Set<String>>> parsed = Lists.newArrayListWithExpectedSize(permissions != null ? permissions.size() : 0);
+    if (permissions != null) {
+      for (String permission : permissions) {
+        try {
+          parsed.add(new ParsedPermission(permission).parts());
+        } catch (IllegalArgumentException e) {
+          log.warn("Ignoring invalid permission [{}]: {}", permission, e.getMessage());
+        }
+      }
+    }
+    return new CompiledPermissions(parsed);
+  }
+
+  /**
+   * Determine whether the permissions imply the given permission.
+   *
+   * @param permission string permission to check.
+   * @return true while any held permission implies it.
+   */
+  public boolean implies(String permission) {
+    Boolean decision = decisions.get(permission);
+    if (decision == null) {
+      decision = implies(parse(permission));
+      if (decisions.size() < MAX_MEMOIZED_DECISIONS) {
+        decisions.put(permission, decision);
+      }
+    }
+    return decision;
+  }
+
+  private boolean implies(List<Set<String>> query) {
+    if (words == 0) {
+      return false;
+    }
+    long[] candidates = all.clone();
+    int length = query.size();
+    for (int i = 0; i < length && i < levels.length; i++) {
+      Level level = levels[i];
+      Set<String> part = query.get(i);
+      long[][] tokenBits = new long[part.size()][];
+      int k = 0;
+      for (String token : part) {
+        tokenBits[k++] = level.tokens.get(token);
+      }
+      boolean any = false;
+      for (int w = 0; w < words; w++) {
+        long contained = ~0L;
+        for (long[] bits : tokenBits) {
+          contained &= bits != null ? bits[w] : 0L;
+        }
+        candidates[w] &= level.ended[w] | level.wildcard[w] | contained;
+        any |= candidates[w] != 0L;
+      }
+      if (!any) {
+        return false;
+      }
+    }
+    long[] tail = length < tailWildcards.length ? tailWildcards[length] : all;
+    for (int w = 0; w < words; w++) {
+      if ((candidates[w] & tail[w]) != 0L) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Set<String>> parse(String permission) {
+    List<Set<String>> parts = QUERIES.get(permission);
+    if (parts == null) {
+      parts = new ParsedPermission(permission).parts();
+      if (QUERIES.size() < MAX_MEMOIZED_QUERIES) {
+        QUERIES.put(permission, parts);
+      }
+    }
+    return parts;
+  }
+
+  private static void set(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private static void clear(long[] bits, int index) {
+    bits[index >>> 6] &= ~(1L << index);
+  }
+
+  /**
+   * Bitsets of one part index.
+   */
+  private static class Level {
+
+    private final Map<String, long[]> tokens = Maps.newHashMap();
+
+    private final long[] wildcard;
+
+    private final long[] ended;
+
+    Level(int words) {
+      this.wildcard = new long[words];
+      this.ended = new long[words];
+    }
+  }
+
+  /**
+   * {@code WildcardPermission} exposing its parsed parts, so parsing rules stay identical to shiro.
+   */
+  private static class ParsedPermission extends WildcardPermission {
+
+    private static final long serialVersionUID = -2836530520853813036L;
+
+    ParsedPermission(String permission) {
+      super(permission);
+    }
+
+    List<Set<String>> parts() {
+      return getParts();
+    }
+  }
+}
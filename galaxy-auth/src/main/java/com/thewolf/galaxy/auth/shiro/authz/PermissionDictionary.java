@@ -0,0 +1,145 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.authz;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable dictionary of every role and permission, assigning each a bit index. The version is derived from the
+ * content, so every node loading the same roles and permissions agrees on it.
+ */
+public final class PermissionDictionary {
+
+  private static final BaseEncoding BASE64_URL = BaseEncoding.base64Url().omitPadding();
+
+  private static final int VERSION_BYTES = 6;
+
+  @Getter
+  private final String version;
+
+  private final List<String> roles;
+
+  private final List<String> permissions;
+
+  private final Map<String, Integer> roleIndexes;
+
+  private final Map<String, Integer> permissionIndexes;
+
+  /**
+   * Constructor.
+   *
+   * @param roles       every role.
+   * @param permissions every string permission.
+   */
+  public PermissionDictionary(Collection<String> roles, Collection<String> permissions) {
+    this.roles = ImmutableList.copyOf(Ordering.natural().sortedCopy(Sets.newHashSet(roles)));
+    this.permissions = ImmutableList.copyOf(Ordering.natural().sortedCopy(Sets.newHashSet(permissions)));
+    this.roleIndexes = indexes(this.roles);
+    this.permissionIndexes = indexes(this.permissions);
+    Hasher hasher = Hashing.sha256().newHasher();
+    this.roles.forEach(role -> hasher.putString(role, Charsets.UTF_8).putByte((byte) 0));
+    hasher.putByte((byte) 1);
+    this.permissions.forEach(permission -> hasher.putString(permission, Charsets.UTF_8).putByte((byte) 0));
+    this.version = BASE64_URL.encode(hasher.hash().asBytes(), 0, VERSION_BYTES);
+  }
+
+  /**
+   * Encode roles as bitmap.
+   *
+   * @param values roles.
+   * @return bitmap or null if any role is not in the dictionary.
+   */
+  public BitSet encodeRoles(Collection<String> values) {
+    return encode(roleIndexes, values);
+  }
+
+  /**
+   * Encode permissions as bitmap.
+   *
+   * @param values string permissions.
+   * @return bitmap or null if any permission is not in the dictionary.
+   */
+  public BitSet encodePermissions(Collection<String> values) {
+    return encode(permissionIndexes, values);
+  }
+
+  /**
+   * Decode roles from bitmap.
+   *
+   * @param bitmap bitmap.
+   * @return roles or null if bitmap refers to unknown entries.
+   */
+  public Set<String> decodeRoles(BitSet bitmap) {
+    return decode(roles, bitmap);
+  }
+
+  /**
+   * Decode permissions from bitmap.
+   *
+   * @param bitmap bitmap.
+   * @return string permissions or null if bitmap refers to unknown entries.
+   */
+  public Set<String> decodePermissions(BitSet bitmap) {
+    return decode(permissions, bitmap);
+  }
+
+  private static Map<String, Integer> indexes(List<String> values) {
+    ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+    for (int i = 0; i < values.size(); i++) {
+      builder.put(values.get(i), i);
+    }
+    return builder.build();
+  }
+
+  private static BitSet encode(Map<String, Integer> indexes, Collection<String> values) {
+    BitSet bitmap = new BitSet(indexes.size());
+    if (values != null) {
+      for (String value : values) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+          return null;
+        }
+        bitmap.set(index);
+      }
+    }
+    return bitmap;
+  }
+
+  private static Set<String> decode(List<String> values, BitSet bitmap) {
+    if (bitmap.length() > values.size()) {
+      return null;
+    }
+    Set<String> decoded = Sets.newHashSetWithExpectedSize(bitmap.cardinality());
+    for (int i = bitmap.nextSetBit(0); i >= 0; i = bitmap.nextSetBit(i + 1)) {
+      decoded.add(values.get(i));
+    }
+    return decoded;
+  }
+}
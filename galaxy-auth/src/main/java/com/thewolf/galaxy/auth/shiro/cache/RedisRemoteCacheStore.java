@@ -0,0 +1,130 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.cache;
+
+import com.google.common.base.Charsets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Redis {@code RemoteCacheStore} that keeps values with a time to live and broadcasts invalidations through
+ * redis pub/sub.
+ */
+@Slf4j
+public class RedisRemoteCacheStore implements RemoteCacheStore, MessageListener {
+
+  public static final String KEY_PREFIX = "galaxy:auth:cache:";
+
+  public static final String CHANNEL = "galaxy:auth:cache:invalidation";
+
+  private static final char SEPARATOR = '\n';
+
+  private final RedisTemplate<String, Object> redisTemplate;
+
+  private final long expiresInSecond;
+
+  private volatile BiConsumer<String, String> invalidationListener;
+
+  /**
+   * Constructor.
+   *
+   * @param connectionFactory redis connection factory.
+   * @param expiresInSecond   time to live of remote entries.
+   */
+  public RedisRemoteCacheStore(RedisConnectionFactory connectionFactory, long expiresInSecond) {
+    this.expiresInSecond = expiresInSecond;
+    this.redisTemplate = new RedisTemplate<>();
+    this.redisTemplate.setConnectionFactory(connectionFactory);
+    this.redisTemplate.setKeySerializer(new StringRedisSerializer());
+    this.redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
+    this.redisTemplate.afterPropertiesSet();
+  }
+
+  @Override
+  public Object get(String cacheName, String key) {
+    return redisTemplate.opsForValue().get(redisKey(cacheName, key));
+  }
+
+  @Override
+  public void put(String cacheName, String key, Object value) {
+    redisTemplate.opsForValue().set(redisKey(cacheName, key), value, expiresInSecond, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void remove(String cacheName, String key) {
+    redisTemplate.delete(redisKey(cacheName, key));
+    publish(cacheName + SEPARATOR + key);
+  }
+
+  @Override
+  public void clear(String cacheName) {
+    String pattern = redisKey(cacheName, "*");
+    redisTemplate.execute((RedisCallback<Void>) connection -> {
+      ScanOptions options = ScanOptions.scanOptions().match(pattern).count(1000).build();
+      try (Cursor<byte[]> cursor = connection.scan(options)) {
+        while (cursor.hasNext()) {
+          connection.del(cursor.next());
+        }
+      } catch (IOException e) {
+        log.warn("Fail to close redis scan cursor", e);
+      }
+      return null;
+    });
+    publish(cacheName);
+  }
+
+  @Override
+  public void setInvalidationListener(BiConsumer<String, String> listener) {
+    this.invalidationListener = listener;
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    BiConsumer<String, String> listener = invalidationListener;
+    if (listener == null) {
+      return;
+    }
+    String body = new String(message.getBody(), Charsets.UTF_8);
+    int index = body.indexOf(SEPARATOR);
+    if (index < 0) {
+      listener.accept(body, null);
+    } else {
+      listener.accept(body.substring(0, index), body.substring(index + 1));
+    }
+  }
+
+  private void publish(String body) {
+    byte[] channel = CHANNEL.getBytes(Charsets.UTF_8);
+    byte[] bytes = body.getBytes(Charsets.UTF_8);
+    redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, bytes));
+  }
+
+  private static String redisKey(String cacheName, String key) {
+    return KEY_PREFIX + cacheName + ":" + key;
+  }
+}
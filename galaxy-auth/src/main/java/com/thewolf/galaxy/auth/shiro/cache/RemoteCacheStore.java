@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.cache;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Interface for the shared (remote) level of {@code TwoLevelCacheManager}.
+ */
+public interface RemoteCacheStore {
+
+  /**
+   * Get cached value.
+   *
+   * @param cacheName cache name.
+   * @param key       cache key.
+   * @return cached value or null while absent.
+   */
+  Object get(String cacheName, String key);
+
+  /**
+   * Put value.
+   *
+   * @param cacheName cache name.
+   * @param key       cache key.
+   * @param value     value, must be serializable.
+   */
+  void put(String cacheName, String key, Object value);
+
+  /**
+   * Remove value and notify every node to drop its near cached copy.
+   *
+   * @param cacheName cache name.
+   * @param key       cache key.
+   */
+  void remove(String cacheName, String key);
+
+  /**
+   * Remove all values of cache and notify every node to drop its near cache.
+   *
+   * @param cacheName cache name.
+   */
+  void clear(String cacheName);
+
+  /**
+   * Register listener that receives invalidations published by any node, key is null while whole cache cleared.
+   *
+   * @param listener listener accepts cache name and key.
+   */
+  void setInvalidationListener(BiConsumer<String, String> listener);
+}
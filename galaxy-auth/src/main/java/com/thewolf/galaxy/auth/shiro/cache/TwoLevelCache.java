@@ -0,0 +1,161 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shiro {@code Cache} with a bounded in-process near level and an optional shared remote level.
+ * Keys are stored by their string form so that every node addresses the same remote entry.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ */
+@Slf4j
+public class TwoLevelCache<K, V> implements Cache<K, V> {
+
+  @Getter
+  private final String name;
+
+  private final com.google.common.cache.Cache<String, V> near;
+
+  private final RemoteCacheStore remote;
+
+  /**
+   * Constructor.
+   *
+   * @param name                cache name.
+   * @param nearMaximumSize     maximum entries of near cache.
+   * @param nearExpiresInSecond near cache entry time to live.
+   * @param remote              shared cache store, null for near cache only.
+   */
+  public TwoLevelCache(String name, long nearMaximumSize, long nearExpiresInSecond, RemoteCacheStore remote) {
+    this.name = name;
+    this.near = CacheBuilder.newBuilder()
+      .maximumSize(nearMaximumSize)
+      .expireAfterWrite(nearExpiresInSecond, TimeUnit.SECONDS)
+      .build();
+    this.remote = remote;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(K key) throws CacheException {
+    if (key == null) {
+      return null;
+    }
+    String k = key.toString();
+    V value = near.getIfPresent(k);
+    if (value != null || remote == null) {
+      return value;
+    }
+    try {
+      value = (V) remote.get(name, k);
+    } catch (RuntimeException e) {
+      log.warn("Fail to read remote cache [{}]", name, e);
+      return null;
+    }
+    if (value != null) {
+      near.put(k, value);
+    }
+    return value;
+  }
+
+  @Override
+  public V put(K key, V value) throws CacheException {
+    String k = key.toString();
+    V previous = near.getIfPresent(k);
+    near.put(k, value);
+    if (remote != null && value instanceof Serializable) {
+      try {
+        remote.put(name, k, value);
+      } catch (RuntimeException e) {
+        log.warn("Fail to write remote cache [{}]", name, e);
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public V remove(K key) throws CacheException {
+    String k = key.toString();
+    V previous = near.getIfPresent(k);
+    near.invalidate(k);
+    if (remote != null) {
+      try {
+        remote.remove(name, k);
+      } catch (RuntimeException e) {
+        log.warn("Fail to remove remote cache [{}]", name, e);
+      }
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() throws CacheException {
+    near.invalidateAll();
+    if (remote != null) {
+      try {
+        remote.clear(name);
+      } catch (RuntimeException e) {
+        log.warn("Fail to clear remote cache [{}]", name, e);
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    return (int) near.size();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Set<K> keys() {
+    return (Set<K>) ImmutableSet.copyOf(near.asMap().keySet());
+  }
+
+  @Override
+  public Collection<V> values() {
+    return ImmutableList.copyOf(near.asMap().values());
+  }
+
+  /**
+   * Evict near cached value only.
+   *
+   * @param key cache key.
+   */
+  void evictNear(String key) {
+    near.invalidate(key);
+  }
+
+  /**
+   * Clear near cache only.
+   */
+  void clearNear() {
+    near.invalidateAll();
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.cache;
+
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+import org.apache.shiro.cache.CacheManager;
+
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Shiro {@code CacheManager} that creates caches with an in-process near level in front of an optional shared
+ * {@code RemoteCacheStore}. Removals are broadcast through the remote store so every node drops its near copy.
+ */
+@Slf4j
+@Getter
+public class TwoLevelCacheManager implements CacheManager {
+
+  private final long nearMaximumSize;
+
+  private final long nearExpiresInSecond;
+
+  private final RemoteCacheStore remoteCacheStore;
+
+  private final ConcurrentMap<String, TwoLevelCache<Object, Object>> caches = Maps.newConcurrentMap();
+
+  /**
+   * Constructor.
+   *
+   * @param nearMaximumSize     maximum entries of each near cache.
+   * @param nearExpiresInSecond near cache entry time to live.
+   * @param remoteCacheStore    shared cache store, null for near cache only.
+   */
+  public TwoLevelCacheManager(long nearMaximumSize, long nearExpiresInSecond, RemoteCacheStore remoteCacheStore) {
+    checkArgument(nearMaximumSize > 0, "nearMaximumSize must be positive");
+    checkArgument(nearExpiresInSecond > 0, "nearExpiresInSecond must be positive");
+    this.nearMaximumSize = nearMaximumSize;
+    this.nearExpiresInSecond = nearExpiresInSecond;
+    this.remoteCacheStore = remoteCacheStore;
+    if (remoteCacheStore != null) {
+      remoteCacheStore.setInvalidationListener(this::evictNear);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> Cache<K, V> getCache(String name) throws CacheException {
+    checkArgument(name != null && !name.isEmpty(), "Cache name cannot be null or empty.");
+    return (Cache<K, V>) caches.computeIfAbsent(name,
+      cacheName -> new TwoLevelCache<>(cacheName, nearMaximumSize, nearExpiresInSecond, remoteCacheStore));
+  }
+
+  /**
+   * Evict near cached value only, used when another node published an invalidation.
+   *
+   * @param cacheName cache name.
+   * @param key       cache key, null to evict whole near cache.
+   */
+  public void evictNear(String cacheName, String key) {
+    TwoLevelCache<Object, Object> cache = caches.get(cacheName);
+    if (cache == null) {
+      return;
+    }
+    log.debug("Evicting near cache [{}] key [{}]", cacheName, key);
+    if (key == null) {
+      cache.clearNear();
+    } else {
+      cache.evictNear(key);
+    }
+  }
+}
@@ -15,10 +15,15 @@
  */
 package com.thewolf.galaxy.auth.shiro.jwt.filter.authc;
 
+import com.thewolf.galaxy.auth.actuate.AuthMetrics;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.FailureCause;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.Stage;
 import com.thewolf.galaxy.auth.service.TokenService;
+import com.thewolf.galaxy.auth.shiro.authc.AuthenticationUnavailableException;
 import com.thewolf.galaxy.auth.support.AuthConstants;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -44,6 +49,8 @@ import javax.servlet.http.HttpServletResponse;
 @Setter
 public class JWTAuthenticationFilter extends AuthenticatingFilter implements TokenServiceAware {
 
+  private static final AuthMetrics METRICS = AuthMetrics.shared();
+
   private TokenService tokenService;
 
   @Override
@@ -54,19 +61,28 @@ public class JWTAuthenticationFilter extends AuthenticatingFilter implements Tok
   @Override
   protected AuthenticationToken createToken(ServletRequest servletRequest, ServletResponse servletResponse)
     throws Exception {
+    long start = System.nanoTime();
     String authorizationHeader = getAuthzHeader(servletRequest);
     log.debug("Attempting to execute login with auth header");
     String jwtToken = getJwtTokenString(authorizationHeader);
     if (jwtToken == null) {
+      METRICS.fail(Stage.TOKEN, FailureCause.MISSING);
       throw new IncorrectCredentialsException("Invalid token.");
     }
     try {
       Claims claims = (Claims) tokenService.parseToken(jwtToken);
       return new JWTAuthenticationToken(claims.getSubject(), claims);
     } catch (ExpiredJwtException e) {
+      METRICS.fail(Stage.TOKEN, FailureCause.EXPIRED);
       throw new ExpiredCredentialsException(e);
+    } catch (SignatureException e) {
+      METRICS.fail(Stage.TOKEN, FailureCause.SIGNATURE);
+      throw new IncorrectCredentialsException(e);
     } catch (Exception e) {
+      METRICS.fail(Stage.TOKEN, FailureCause.MALFORMED);
       throw new IncorrectCredentialsException(e);
+    } finally {
+      METRICS.record(Stage.TOKEN, start);
     }
   }
 
@@ -92,7 +108,8 @@ public class JWTAuthenticationFilter extends AuthenticatingFilter implements Tok
   protected boolean onLoginFailure(AuthenticationToken token, AuthenticationException e,
                                    ServletRequest request, ServletResponse response) {
     HttpServletResponse httpResponse = WebUtils.toHttp(response);
-    httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    httpResponse.setStatus(e instanceof AuthenticationUnavailableException
+      ? HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_UNAUTHORIZED);
     return false;
   }
 
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.jwt.filter.authz;
+
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+
+/**
+ * Interface to be implemented by any object that wishes to be notified
+ * of the {@link AuthorizationAuditor} recording its decisions.
+ */
+public interface AuthorizationAuditorAware {
+
+  /**
+   * Set {@code AuthorizationAuditor}.
+   *
+   * @param authorizationAuditor {@code AuthorizationAuditor} instance.
+   */
+  void setAuthorizationAuditor(AuthorizationAuditor authorizationAuditor);
+
+}
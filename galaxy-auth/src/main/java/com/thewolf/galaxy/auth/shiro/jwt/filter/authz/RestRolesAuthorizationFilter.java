@@ -15,18 +15,49 @@
  */
 package com.thewolf.galaxy.auth.shiro.jwt.filter.authz;
 
+import com.thewolf.galaxy.auth.actuate.AuthMetrics;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.FailureCause;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.Stage;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.support.AuthorizationDecision.Source;
+import lombok.Setter;
 import org.apache.shiro.web.filter.authz.RolesAuthorizationFilter;
 import org.apache.shiro.web.util.WebUtils;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
  * Rest style {@code RolesAuthorizationFilter} that will issue unauthorized http code while access denied.
  */
-public class RestRolesAuthorizationFilter extends RolesAuthorizationFilter {
+public class RestRolesAuthorizationFilter extends RolesAuthorizationFilter
+  implements AuthorizationAuditorAware {
+
+  private static final AuthMetrics METRICS = AuthMetrics.shared();
+
+  @Setter
+  private AuthorizationAuditor authorizationAuditor;
+
+  @Override
+  public boolean isAccessAllowed(ServletRequest request, ServletResponse response, Object mappedValue)
+    throws IOException {
+    long start = System.nanoTime();
+    boolean allowed = super.isAccessAllowed(request, response, mappedValue);
+    METRICS.record(Stage.AUTHORIZATION_FILTER, start);
+    if (!allowed) {
+      METRICS.fail(Stage.AUTHORIZATION_FILTER, FailureCause.DENIED);
+    }
+    if (authorizationAuditor != null) {
+      HttpServletRequest httpRequest = WebUtils.toHttp(request);
+      authorizationAuditor.record(Source.ROLES_FILTER, getSubject(request, response),
+        httpRequest.getMethod() + " " + WebUtils.getPathWithinApplication(httpRequest),
+        mappedValue != null ? "roles[" + String.join(",", (String[]) mappedValue) + "]" : null, allowed);
+    }
+    return allowed;
+  }
 
   @Override
   protected boolean onAccessDenied(ServletRequest servletRequest, ServletResponse servletResponse)
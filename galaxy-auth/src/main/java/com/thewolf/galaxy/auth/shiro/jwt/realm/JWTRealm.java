@@ -15,10 +15,27 @@
  */
 package com.thewolf.galaxy.auth.shiro.jwt.realm;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.FailureCause;
+import com.thewolf.galaxy.auth.actuate.AuthMetrics.Stage;
+import com.thewolf.galaxy.auth.service.ApiKeyIndex;
+import com.thewolf.galaxy.auth.service.BatchingLoader;
+import com.thewolf.galaxy.auth.shiro.apikey.filter.authc.ApiKeyAuthenticationToken;
+import com.thewolf.galaxy.auth.shiro.authc.AuthenticationUnavailableException;
+import com.thewolf.galaxy.auth.shiro.authz.AuthorizationClaim;
+import com.thewolf.galaxy.auth.shiro.authz.AuthorizationClaimsCodec;
+import com.thewolf.galaxy.auth.shiro.authz.CompiledAuthorizationInfo;
 import com.thewolf.galaxy.auth.shiro.jwt.filter.authc.JWTAuthenticationToken;
+import com.thewolf.galaxy.auth.support.ApiKey;
+import com.thewolf.galaxy.auth.support.AuthConstants;
 import com.thewolf.galaxy.auth.support.AuthenticatingFacade;
 import com.thewolf.galaxy.auth.support.AuthenticatingUser;
 import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import lombok.Setter;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -27,22 +44,57 @@ import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authc.UnknownAccountException;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * JWT realm implementation.
+ * While a {@code CacheManager} is set, authenticating users and authorization info are cached by user id.
+ * String permission checks are answered by {@code CompiledPermissions} instead of resolving and scanning
+ * {@code WildcardPermission}s, as long as the default permission resolving is in use.
+ * While an {@code AuthorizationClaimsCodec} is set, authorization info is decoded from the authorization claim of the
+ * token without touching the cache or {@code AuthenticatingFacade}, unless the claim is absent or stale.
+ * While an {@code ApiKeyIndex} is set, api keys are authenticated too.
+ * While a {@code BatchingLoader} of users is set, concurrent user lookups missing the user cache are coalesced into
+ * batched lookups, a timed out lookup fails with {@code AuthenticationUnavailableException}.
+ * Authentication, authorization loading and permission checks are recorded to {@code AuthMetrics}.
  */
 public class JWTRealm extends AuthorizingRealm {
 
+  public static final String USER_CACHE_NAME = "galaxy.auth.users";
+
+  public static final String AUTHORIZATION_CACHE_NAME = "galaxy.auth.authorization";
+
+  private static final AuthMetrics METRICS = AuthMetrics.shared();
+
   private final AuthenticatingFacade authenticatingFacade;
 
+  private Cache<Object, AuthenticatingUser> userCache;
+
+  @Getter
+  @Setter
+  private AuthorizationClaimsCodec authorizationClaimsCodec;
+
+  @Getter
+  @Setter
+  private ApiKeyIndex apiKeyIndex;
+
+  @Getter
+  @Setter
+  private BatchingLoader<AuthenticatingUser> userLoader;
+
   /**
    * Constructor.
    *
@@ -51,41 +103,239 @@ public class JWTRealm extends AuthorizingRealm {
   public JWTRealm(AuthenticatingFacade authenticatingFacade) {
     checkNotNull(authenticatingFacade);
     this.authenticatingFacade = authenticatingFacade;
+    setAuthorizationCacheName(AUTHORIZATION_CACHE_NAME);
   }
 
   @Override
   public boolean supports(AuthenticationToken token) {
-    return token != null && token instanceof JWTAuthenticationToken;
+    return token instanceof JWTAuthenticationToken
+      || apiKeyIndex != null && token instanceof ApiKeyAuthenticationToken;
   }
 
   @Override
   protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken authenticationToken)
     throws AuthenticationException {
-    JWTAuthenticationToken jwtAuthenticationToken = (JWTAuthenticationToken) authenticationToken;
-    AuthenticatingUser authenticatingUser = authenticatingFacade.findUserById(jwtAuthenticationToken.getUserId());
-    if (authenticatingUser == null || authenticatingUser.getValidAfter() == null) {
-      throw new UnknownAccountException("Account not found.");
-    } else if (authenticatingUser.isActive() == false) {
-      throw new DisabledAccountException("Account disabled.");
+    long start = System.nanoTime();
+    try {
+      if (authenticationToken instanceof ApiKeyAuthenticationToken) {
+        return doGetApiKeyAuthenticationInfo((ApiKeyAuthenticationToken) authenticationToken);
+      }
+      return doGetJwtAuthenticationInfo((JWTAuthenticationToken) authenticationToken);
+    } finally {
+      METRICS.record(Stage.AUTHENTICATION, start);
     }
+  }
+
+  private AuthenticationInfo doGetJwtAuthenticationInfo(JWTAuthenticationToken jwtAuthenticationToken) {
+    AuthenticatingUser authenticatingUser = findActiveUser(jwtAuthenticationToken.getUserId());
     Date validAfter = Date.from(authenticatingUser.getValidAfter().toInstant());
     Claims claims = jwtAuthenticationToken.getClaims();
     if (claims.getIssuedAt().before(validAfter)) {
-      throw new IncorrectCredentialsException("Invalid token.");
+      throw failure(FailureCause.VALID_AFTER, new IncorrectCredentialsException("Invalid token."));
+    }
+    String authorization = claims.get(AuthConstants.AUTHORIZATION_CLAIM, String.class);
+    if (authorizationClaimsCodec == null || authorization == null) {
+      return new SimpleAuthenticationInfo(authenticatingUser, jwtAuthenticationToken.getCredentials(),
+        getName());
     }
-    return new SimpleAuthenticationInfo(authenticatingUser, authenticationToken.getCredentials(),
+    SimplePrincipalCollection principals = new SimplePrincipalCollection(authenticatingUser, getName());
+    principals.add(new AuthorizationClaim(authorization), getName());
+    return new SimpleAuthenticationInfo(principals, jwtAuthenticationToken.getCredentials());
+  }
+
+  /**
+   * Authenticate api key against {@code ApiKeyIndex}, the key authenticates as its user and shares the user's
+   * cached authorization info.
+   *
+   * @param apiKeyAuthenticationToken an instance of {@code ApiKeyAuthenticationToken}.
+   * @return authentication info.
+   */
+  private AuthenticationInfo doGetApiKeyAuthenticationInfo(ApiKeyAuthenticationToken apiKeyAuthenticationToken) {
+    ApiKey apiKey = apiKeyIndex.find(apiKeyAuthenticationToken.getApiKey());
+    if (apiKey == null) {
+      throw failure(FailureCause.INVALID_API_KEY, new IncorrectCredentialsException("Invalid api key."));
+    }
+    return new SimpleAuthenticationInfo(findActiveUser(apiKey.getUserId()), apiKeyAuthenticationToken.getCredentials(),
       getName());
   }
 
+  private AuthenticatingUser findActiveUser(String userId) {
+    AuthenticatingUser authenticatingUser = findUserById(userId);
+    if (authenticatingUser == null || authenticatingUser.getValidAfter() == null) {
+      throw failure(FailureCause.UNKNOWN_ACCOUNT, new UnknownAccountException("Account not found."));
+    } else if (authenticatingUser.isActive() == false) {
+      throw failure(FailureCause.DISABLED, new DisabledAccountException("Account disabled."));
+    }
+    return authenticatingUser;
+  }
+
+  private static AuthenticationException failure(FailureCause cause, AuthenticationException exception) {
+    METRICS.fail(Stage.AUTHENTICATION, cause);
+    return exception;
+  }
+
+  @Override
+  protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+    if (authorizationClaimsCodec != null && principals != null) {
+      AuthorizationClaim authorizationClaim = principals.oneByType(AuthorizationClaim.class);
+      if (authorizationClaim != null) {
+        AuthorizationInfo info = authorizationClaimsCodec.decode(authorizationClaim.getValue());
+        if (info != null) {
+          return info;
+        }
+      }
+    }
+    return super.getAuthorizationInfo(principals);
+  }
+
   @Override
   protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principalCollection) {
+    long start = System.nanoTime();
     AuthenticatingUser authenticatingUser = (AuthenticatingUser) principalCollection.getPrimaryPrincipal();
     String userId = authenticatingUser.getId();
     Set<String> roles = authenticatingFacade.findRolesByUserId(userId);
     Set<String> permissions = authenticatingFacade.findPermissionsByUserId(userId);
-    SimpleAuthorizationInfo simpleAuthorizationInfo = new SimpleAuthorizationInfo(roles);
-    simpleAuthorizationInfo.setStringPermissions(permissions);
-    return simpleAuthorizationInfo;
+    METRICS.record(Stage.AUTHORIZATION, start);
+    return new CompiledAuthorizationInfo(roles, permissions);
+  }
+
+  @Override
+  public boolean isPermitted(PrincipalCollection principals, String permission) {
+    long start = System.nanoTime();
+    AuthorizationInfo info = getAuthorizationInfo(principals);
+    boolean permitted = isCompiled(info)
+      ? ((CompiledAuthorizationInfo) info).getCompiledPermissions().implies(permission)
+      : isPermitted(getPermissionResolver().resolvePermission(permission), info);
+    METRICS.record(Stage.PERMISSION_CHECK, start);
+    if (!permitted) {
+      METRICS.fail(Stage.PERMISSION_CHECK, FailureCause.DENIED);
+    }
+    return permitted;
+  }
+
+  private boolean isCompiled(AuthorizationInfo info) {
+    return info instanceof CompiledAuthorizationInfo
+      && (info.getObjectPermissions() == null || info.getObjectPermissions().isEmpty())
+      && getRolePermissionResolver() == null
+      && getPermissionResolver() != null
+      && getPermissionResolver().getClass() == WildcardPermissionResolver.class;
+  }
+
+  @Override
+  protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
+    return ((AuthenticatingUser) principals.getPrimaryPrincipal()).getId();
+  }
+
+  @Override
+  protected void afterCacheManagerSet() {
+    super.afterCacheManagerSet();
+    CacheManager cacheManager = getCacheManager();
+    userCache = cacheManager != null ? cacheManager.getCache(USER_CACHE_NAME) : null;
+  }
+
+  /**
+   * Find user by id, served from user cache while caching is enabled and coalesced by the user loader while set.
+   *
+   * @param userId user id.
+   * @return an instance of {@code AuthenticatingUser} or null if not found.
+   */
+  public AuthenticatingUser findUserById(String userId) {
+    Cache<Object, AuthenticatingUser> cache = userCache;
+    if (cache == null) {
+      return loadUser(userId);
+    }
+    AuthenticatingUser authenticatingUser = cache.get(userId);
+    if (authenticatingUser == null) {
+      authenticatingUser = loadUser(userId);
+      if (authenticatingUser != null) {
+        cache.put(userId, authenticatingUser);
+      }
+    }
+    return authenticatingUser;
+  }
+
+  private AuthenticatingUser loadUser(String userId) {
+    BatchingLoader<AuthenticatingUser> loader = userLoader;
+    if (loader == null) {
+      return authenticatingFacade.findUserById(userId);
+    }
+    try {
+      return loader.get(userId);
+    } catch (UncheckedTimeoutException e) {
+      throw failure(FailureCause.UNAVAILABLE, new AuthenticationUnavailableException("User lookup timed out.", e));
+    }
+  }
+
+  /**
+   * Find users by ids, cached users are served from user cache and the rest are found by one batched lookup.
+   *
+   * @param userIds user ids.
+   * @return users by id, ids not found are absent.
+   */
+  public Map<String, AuthenticatingUser> findUsersByIds(Collection<String> userIds) {
+    Cache<Object, AuthenticatingUser> cache = userCache;
+    if (cache == null) {
+      return authenticatingFacade.findUsersByIds(userIds);
+    }
+    Map<String, AuthenticatingUser> users = Maps.newHashMapWithExpectedSize(userIds.size());
+    List<String> missing = Lists.newArrayList();
+    for (String userId : userIds) {
+      AuthenticatingUser authenticatingUser = cache.get(userId);
+      if (authenticatingUser != null) {
+        users.put(userId, authenticatingUser);
+      } else {
+        missing.add(userId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      Map<String, AuthenticatingUser> found = authenticatingFacade.findUsersByIds(missing);
+      found.forEach(cache::put);
+      users.putAll(found);
+    }
+    return users;
+  }
+
+  /**
+   * Warm authorization cache up, authorization info of users not cached yet is found by one batched lookup. Could be
+   * called by the application before a burst of requests from known users, e.g. after a deployment.
+   *
+   * @param userIds user ids.
+   */
+  public void warmAuthorizationCache(Collection<String> userIds) {
+    Cache<Object, AuthorizationInfo> authorizationCache = getAuthorizationCache();
+    if (authorizationCache == null) {
+      return;
+    }
+    List<String> missing = Lists.newArrayList();
+    for (String userId : userIds) {
+      if (authorizationCache.get(userId) == null) {
+        missing.add(userId);
+      }
+    }
+    if (!missing.isEmpty()) {
+      authenticatingFacade.findAuthorizationByUserIds(missing).forEach((userId, authorization) ->
+        authorizationCache.put(userId, new CompiledAuthorizationInfo(authorization.getRoles(),
+          authorization.getPermissions())));
+    }
+  }
+
+  /**
+   * Invalidate cached user and authorization info, should be called by the application after user's valid after
+   * time, status, roles or permissions changed. The remote entries are removed and other nodes drop their near
+   * copies through the invalidation broadcast of the {@code RemoteCacheStore} (redis pub/sub). Without a remote
+   * store, or while a broadcast is lost, other nodes keep their near copies until the near cache time to live.
+   *
+   * @param userId user id.
+   */
+  public void clearCache(String userId) {
+    Cache<Object, AuthenticatingUser> cache = userCache;
+    if (cache != null) {
+      cache.remove(userId);
+    }
+    Cache<Object, AuthorizationInfo> authorizationCache = getAuthorizationCache();
+    if (authorizationCache != null) {
+      authorizationCache.remove(userId);
+    }
   }
 
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.spring.security.interceptor;
+
+import com.google.common.collect.Maps;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
+import com.thewolf.galaxy.auth.support.AuthorizationDecision.Source;
+import org.apache.shiro.aop.MethodInvocation;
+import org.apache.shiro.authz.AuthorizationException;
+import org.apache.shiro.authz.annotation.Logical;
+import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.apache.shiro.authz.annotation.RequiresGuest;
+import org.apache.shiro.authz.annotation.RequiresPermissions;
+import org.apache.shiro.authz.annotation.RequiresRoles;
+import org.apache.shiro.authz.annotation.RequiresUser;
+import org.apache.shiro.spring.security.interceptor.AopAllianceAnnotationsAuthorizingMethodInterceptor;
+import org.apache.shiro.util.ThreadContext;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Annotation authorizing interceptor recording every decision of shiro annotations to {@code AuthorizationAuditor}.
+ */
+public class AuditingAnnotationsAuthorizingMethodInterceptor
+  extends AopAllianceAnnotationsAuthorizingMethodInterceptor {
+
+  private final AuthorizationAuditor authorizationAuditor;
+
+  private final ConcurrentMap<Method, String[]> descriptions = Maps.newConcurrentMap();
+
+  /**
+   * Constructor.
+   *
+   * @param authorizationAuditor an instance of {@code AuthorizationAuditor}.
+   */
+  public AuditingAnnotationsAuthorizingMethodInterceptor(AuthorizationAuditor authorizationAuditor) {
+    super();
+    checkNotNull(authorizationAuditor);
+    this.authorizationAuditor = authorizationAuditor;
+  }
+
+  @Override
+  protected void assertAuthorized(MethodInvocation methodInvocation) throws AuthorizationException {
+    try {
+      super.assertAuthorized(methodInvocation);
+    } catch (AuthorizationException e) {
+      record(methodInvocation.getMethod(), false);
+      throw e;
+    }
+    record(methodInvocation.getMethod(), true);
+  }
+
+  private void record(Method method, boolean allowed) {
+    String[] description = descriptions.computeIfAbsent(method,
+      AuditingAnnotationsAuthorizingMethodInterceptor::describe);
+    authorizationAuditor.record(Source.ANNOTATION, ThreadContext.getSubject(), description[0], description[1],
+      allowed);
+  }
+
+  /**
+   * Describe method as resource and requirement, requirements of {@code Logical.OR} are separated by {@code |}.
+   *
+   * @param method intercepted method.
+   * @return resource and requirement.
+   */
+  private static String[] describe(Method method) {
+    StringBuilder requirement = new StringBuilder();
+    RequiresPermissions permissions = find(method, RequiresPermissions.class);
+    if (permissions != null) {
+      append(requirement, "perms", permissions.value(), permissions.logical());
+    }
+    RequiresRoles roles = find(method, RequiresRoles.class);
+    if (roles != null) {
+      append(requirement, "roles", roles.value(), roles.logical());
+    }
+    if (find(method, RequiresAuthentication.class) != null) {
+      append(requirement, "authc", null, null);
+    }
+    if (find(method, RequiresUser.class) != null) {
+      append(requirement, "user", null, null);
+    }
+    if (find(method, RequiresGuest.class) != null) {
+      append(requirement, "guest", null, null);
+    }
+    String resource = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+    return new String[]{resource, requirement.toString()};
+  }
+
+  private static <A extends Annotation> A find(Method method, Class<A> annotationType) {
+    A annotation = AnnotationUtils.findAnnotation(method, annotationType);
+    return annotation != null ? annotation : AnnotationUtils.findAnnotation(method.getDeclaringClass(), annotationType);
+  }
+
+  private static void append(StringBuilder requirement, String name, String[] values, Logical logical) {
+    if (requirement.length() > 0) {
+      requirement.append(' ');
+    }
+    requirement.append(name);
+    if (values != null) {
+      requirement.append('[').append(String.join(logical == Logical.OR ? "|" : ",", values)).append(']');
+    }
+  }
+}
@@ -16,27 +16,33 @@
 package com.thewolf.galaxy.auth.shiro.spring.web;
 
 import com.google.common.collect.Maps;
+import com.thewolf.galaxy.auth.service.AuthorizationAuditor;
 import com.thewolf.galaxy.auth.service.TokenService;
 import com.thewolf.galaxy.auth.shiro.jwt.filter.authc.TokenServiceAware;
+import com.thewolf.galaxy.auth.shiro.jwt.filter.authz.AuthorizationAuditorAware;
 import com.thewolf.galaxy.auth.shiro.web.mgt.RestFilterChainManager;
+import com.thewolf.galaxy.auth.shiro.web.mgt.RestFilterChainResolver;
 import com.thewolf.galaxy.auth.shiro.web.mgt.RestSecurityManager;
 import com.thewolf.galaxy.auth.shiro.web.servlet.RestShiroFilter;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.config.ConfigurationException;
 import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.util.CollectionUtils;
 import org.apache.shiro.util.Nameable;
 import org.apache.shiro.web.filter.mgt.FilterChainManager;
-import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 
 import javax.servlet.Filter;
+import java.util.Collections;
 import java.util.Map;
 
+import static com.google.common.base.Preconditions.checkState;
+
 /**
  * Rest shiro factory bean to initialize {@code RestShiroFilter}.
  */
@@ -50,9 +56,19 @@ public class RestShiroFilterFactoryBean implements FactoryBean, BeanPostProcesso
 
   private TokenService tokenService;
 
+  /**
+   * Auditor of filter authorization decisions, could be null.
+   */
+  private AuthorizationAuditor authorizationAuditor;
+
   private Map<String, Filter> filters;
 
-  private Map<String, String> filterChainDefinitionMap;
+  /**
+   * Current chain definitions, replaced as a whole on reload and read by request threads without locking.
+   */
+  private volatile Map<String, String> filterChainDefinitionMap;
+
+  private long filterChainCacheSize = RestFilterChainResolver.DEFAULT_CACHE_SIZE;
 
   private RestShiroFilter instance;
 
@@ -116,17 +132,50 @@ public class RestShiroFilterFactoryBean implements FactoryBean, BeanPostProcesso
       throw new BeanInitializationException(msg);
     }
     FilterChainManager manager = createFilterChainManager();
-    PathMatchingFilterChainResolver chainResolver = new PathMatchingFilterChainResolver();
-    chainResolver.setFilterChainManager(manager);
+    RestFilterChainResolver chainResolver = new RestFilterChainResolver(manager, filterChainCacheSize);
     return new RestShiroFilter((RestSecurityManager) securityManager, chainResolver);
   }
 
+  /**
+   * Replace filter chains of the created filter at runtime. The new chains are built and compiled on the calling
+   * thread and published atomically, the current chains are kept if any definition is invalid.
+   * Reloaded chains are neither persisted nor shared with other nodes, configured chains apply again on restart.
+   *
+   * @param chainDefinitions chain definitions by path pattern, in definition order.
+   * @throws IllegalArgumentException while a definition refers to an unknown filter or is malformed.
+   */
+  public synchronized void reloadFilterChains(Map<String, String> chainDefinitions) {
+    checkState(instance != null, "Shiro filter is not created yet.");
+    checkState(instance.getFilterChainResolver() instanceof RestFilterChainResolver,
+      "Filter chain resolver does not support reloading.");
+    Map<String, String> definitions = Maps.newLinkedHashMap(chainDefinitions);
+    FilterChainManager manager;
+    try {
+      manager = createFilterChainManager(definitions);
+    } catch (ConfigurationException e) {
+      throw new IllegalArgumentException(e.getMessage(), e);
+    }
+    ((RestFilterChainResolver) instance.getFilterChainResolver()).swap(manager);
+    filterChainDefinitionMap = Collections.unmodifiableMap(definitions);
+    log.info("Reloaded {} filter chains.", definitions.size());
+  }
+
   /**
    * Creates {@code FilterChainManager}.
    *
    * @return an instance of {@code FilterChainManager}.
    */
   protected FilterChainManager createFilterChainManager() {
+    return createFilterChainManager(filterChainDefinitionMap);
+  }
+
+  /**
+   * Creates {@code FilterChainManager} with given chain definitions.
+   *
+   * @param chainDefinitions chain definitions by path pattern.
+   * @return an instance of {@code FilterChainManager}.
+   */
+  protected FilterChainManager createFilterChainManager(Map<String, String> chainDefinitions) {
     RestFilterChainManager manager = new RestFilterChainManager(tokenService);
     if (!CollectionUtils.isEmpty(filters)) {
       for (Map.Entry<String, Filter> entry : filters.entrySet()) {
@@ -141,8 +190,13 @@ public class RestShiroFilterFactoryBean implements FactoryBean, BeanPostProcesso
         manager.addFilter(name, filter, false);
       }
     }
-    if (!CollectionUtils.isEmpty(filterChainDefinitionMap)) {
-      for (Map.Entry<String, String> entry : filterChainDefinitionMap.entrySet()) {
+    if (authorizationAuditor != null) {
+      manager.getFilters().values().stream()
+        .filter(filter -> filter instanceof AuthorizationAuditorAware)
+        .forEach(filter -> ((AuthorizationAuditorAware) filter).setAuthorizationAuditor(authorizationAuditor));
+    }
+    if (!CollectionUtils.isEmpty(chainDefinitions)) {
+      for (Map.Entry<String, String> entry : chainDefinitions.entrySet()) {
         String url = entry.getKey();
         String chainDefinition = entry.getValue();
         manager.createChain(url, chainDefinition);
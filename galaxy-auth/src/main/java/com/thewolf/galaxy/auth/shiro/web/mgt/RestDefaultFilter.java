@@ -16,6 +16,7 @@
 package com.thewolf.galaxy.auth.shiro.web.mgt;
 
 import com.google.common.collect.Maps;
+import com.thewolf.galaxy.auth.shiro.apikey.filter.authc.ApiKeyAuthenticationFilter;
 import com.thewolf.galaxy.auth.shiro.jwt.filter.authc.JWTAuthenticationFilter;
 import com.thewolf.galaxy.auth.shiro.jwt.filter.authz.RestPermissionsAuthorizationFilter;
 import com.thewolf.galaxy.auth.shiro.jwt.filter.authz.RestRolesAuthorizationFilter;
@@ -31,6 +32,7 @@ import java.util.Map;
  */
 public enum RestDefaultFilter {
   jwt(JWTAuthenticationFilter.class),
+  apiKey(ApiKeyAuthenticationFilter.class),
   perms(RestPermissionsAuthorizationFilter.class),
   roles(RestRolesAuthorizationFilter.class);
 
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.shiro.web.mgt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.PatternMatcher;
+import org.apache.shiro.util.StringUtils;
+import org.apache.shiro.web.filter.mgt.FilterChainManager;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Rest style {@code FilterChainResolver} implementation.
+ * Chain patterns are compiled once into a trie of their leading literal path segments, so only patterns sharing a
+ * prefix with the request path are evaluated, still in definition order so the first matching chain wins.
+ * Resolved chain names are memoized per request path. Patterns shadowed by an earlier pattern are reported while
+ * compiling. Falls back to {@code PathMatchingFilterChainResolver} when a custom {@code PatternMatcher} is set.
+ * The manager, its compiled chains and memoized resolutions are published together through an atomic reference,
+ * so chains can be replaced at runtime by {@code swap} without blocking requests.
+ */
+@Slf4j
+public class RestFilterChainResolver extends PathMatchingFilterChainResolver {
+
+  public static final long DEFAULT_CACHE_SIZE = 4096;
+
+  private static final String PATH_SEPARATOR = "/";
+
+  private static final String ANY_PATH = "**";
+
+  private final long maximumCacheSize;
+
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+  /**
+   * Constructor.
+   *
+   * @param filterChainManager an instance of {@code FilterChainManager}, chains should be already created.
+   * @param maximumCacheSize   maximum number of memoized request paths, 0 to disable.
+   */
+  public RestFilterChainResolver(FilterChainManager filterChainManager, long maximumCacheSize) {
+    super();
+    checkNotNull(filterChainManager);
+    checkArgument(maximumCacheSize >= 0, "maximumCacheSize must not be negative");
+    this.maximumCacheSize = maximumCacheSize;
+    setFilterChainManager(filterChainManager);
+  }
+
+  @Override
+  public FilterChainManager getFilterChainManager() {
+    Snapshot current = snapshot.get();
+    return current != null ? current.manager : super.getFilterChainManager();
+  }
+
+  @Override
+  public void setFilterChainManager(FilterChainManager filterChainManager) {
+    super.setFilterChainManager(filterChainManager);
+    swap(filterChainManager);
+  }
+
+  @Override
+  public void setPathMatcher(PatternMatcher pathMatcher) {
+    super.setPathMatcher(pathMatcher);
+    compile();
+  }
+
+  /**
+   * Compile chains of current {@code FilterChainManager} again, should be called after its chains changed in place.
+   */
+  public void compile() {
+    FilterChainManager manager = getFilterChainManager();
+    if (manager != null) {
+      swap(manager);
+    }
+  }
+
+  /**
+   * Compile chains of {@code FilterChainManager} and publish it atomically. Requests in flight keep resolving
+   * against the previous manager, later requests see the new one, never a partially built one.
+   *
+   * @param filterChainManager an instance of {@code FilterChainManager}, chains should be already created.
+   */
+  public void swap(FilterChainManager filterChainManager) {
+    checkNotNull(filterChainManager);
+    Index compiled = new Index(Lists.newArrayList(filterChainManager.getChainNames()), getPathMatcher());
+    snapshot.set(new Snapshot(filterChainManager, compiled, maximumCacheSize));
+  }
+
+  @Override
+  public FilterChain getChain(ServletRequest request, ServletResponse response, FilterChain originalChain) {
+    if (getPathMatcher().getClass() != AntPathMatcher.class) {
+      return super.getChain(request, response, originalChain);
+    }
+    Snapshot current = snapshot.get();
+    if (current.index.isEmpty()) {
+      return null;
+    }
+    String requestUri = getPathWithinApplication(request);
+    String chainName = current.resolve(requestUri);
+    if (chainName == null) {
+      return null;
+    }
+    log.trace("Matched path pattern [{}] for requestURI [{}].  Utilizing corresponding filter chain...",
+      chainName, requestUri);
+    return current.manager.proxy(originalChain, chainName);
+  }
+
+  /**
+   * Published state, a manager together with its compiled chains and memoized resolutions.
+   */
+  private static class Snapshot {
+
+    private final FilterChainManager manager;
+
+    private final Index index;
+
+    private final Cache<String, Optional<String>> resolved;
+
+    Snapshot(FilterChainManager manager, Index index, long maximumCacheSize) {
+      this.manager = manager;
+      this.index = index;
+      this.resolved = maximumCacheSize > 0 ? CacheBuilder.newBuilder()
+        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+        .maximumSize(maximumCacheSize)
+        .build() : null;
+    }
+
+    String resolve(String requestUri) {
+      if (resolved == null) {
+        return index.resolve(requestUri);
+      }
+      Optional<String> chainName = resolved.getIfPresent(requestUri);
+      if (chainName == null) {
+        chainName = Optional.ofNullable(index.resolve(requestUri));
+        resolved.put(requestUri, chainName);
+      }
+      return chainName.orElse(null);
+    }
+  }
+
+  /**
+   * Compiled chain patterns.
+   */
+  private static class Index {
+
+    private final List<String> patterns;
+
+    private final PatternMatcher pathMatcher;
+
+    private final Node root = new Node();
+
+    Index(List<String> patterns, PatternMatcher pathMatcher) {
+      this.patterns = ImmutableList.copyOf(patterns);
+      this.pathMatcher = pathMatcher;
+      for (int i = 0; i < this.patterns.size(); i++) {
+        Node node = root;
+        for (String segment : StringUtils.tokenizeToStringArray(this.patterns.get(i), PATH_SEPARATOR)) {
+          if (!isLiteral(segment)) {
+            break;
+          }
+          node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.patterns.set(i);
+      }
+      reportShadowed();
+    }
+
+    boolean isEmpty() {
+      return patterns.isEmpty();
+    }
+
+    String resolve(String requestUri) {
+      BitSet candidates = (BitSet) root.patterns.clone();
+      Node node = root;
+      String[] segments = StringUtils.tokenizeToStringArray(requestUri, PATH_SEPARATOR);
+      for (int i = 0; segments != null && i < segments.length; i++) {
+        node = node.children.get(segments[i]);
+        if (node == null) {
+          break;
+        }
+        candidates.or(node.patterns);
+      }
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        String pattern = patterns.get(i);
+        if (pathMatcher.matches(pattern, requestUri)) {
+          return pattern;
+        }
+      }
+      return null;
+    }
+
+    private void reportShadowed() {
+      for (int j = 1; j < patterns.size(); j++) {
+        String pattern = patterns.get(j);
+        for (int i = 0; i < j; i++) {
+          String earlier = patterns.get(i);
+          if (covers(earlier, pattern)) {
+            log.warn("Filter chain [{}] is shadowed by earlier filter chain [{}] and will never be resolved.",
+              pattern, earlier);
+            break;
+          }
+        }
+      }
+    }
+
+    /**
+     * Conservative check whether every path matched by {@code pattern} is matched by {@code earlier} too.
+     */
+    private boolean covers(String earlier, String pattern) {
+      if (!pathMatcher.matches(earlier, pattern)) {
+        return false;
+      }
+      if (isLiteral(pattern)) {
+        return true;
+      }
+      String suffix = PATH_SEPARATOR + ANY_PATH;
+      return earlier.endsWith(suffix) && isLiteral(earlier.substring(0, earlier.length() - suffix.length()));
+    }
+
+    private static boolean isLiteral(String path) {
+      return path.indexOf('*') < 0 && path.indexOf('?') < 0;
+    }
+  }
+
+  /**
+   * Trie node of literal path segments, holding definition indexes of patterns whose literal prefix ends here.
+   */
+  private static class Node {
+
+    private final Map<String, Node> children = Maps.newHashMap();
+
+    private final BitSet patterns = new BitSet();
+
+  }
+}
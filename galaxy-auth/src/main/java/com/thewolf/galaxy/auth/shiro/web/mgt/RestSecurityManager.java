@@ -15,6 +15,7 @@
  */
 package com.thewolf.galaxy.auth.shiro.web.mgt;
 
+import com.thewolf.galaxy.auth.shiro.web.subject.support.RestDelegatingSubject;
 import com.thewolf.galaxy.auth.shiro.web.subject.support.RestSubjectContext;
 import lombok.Getter;
 import lombok.Setter;
@@ -31,14 +32,19 @@ import org.apache.shiro.session.mgt.SessionContext;
 import org.apache.shiro.session.mgt.SessionKey;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.subject.SubjectContext;
+import org.apache.shiro.web.subject.WebSubject;
 import org.apache.shiro.web.subject.WebSubjectContext;
 
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import java.util.Collection;
 
-import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Stateless Rest security manager.
+ * While the default {@code RestSubjectFactory} is in use, request and authenticated subjects are created directly
+ * instead of through a populated {@code SubjectContext}.
  */
 @Getter
 @Setter
@@ -106,6 +112,23 @@ public class RestSecurityManager extends AuthorizingSecurityManager {
     return doCreateSubject(context);
   }
 
+  /**
+   * Creates an anonymous {@code Subject} bound to the servlet request/response pair.
+   *
+   * @param request  servlet request.
+   * @param response servlet response.
+   * @return the {@code Subject} instance for the request.
+   */
+  public Subject createSubject(ServletRequest request, ServletResponse response) {
+    if (isDefaultSubjectFactory()) {
+      return new RestDelegatingSubject(null, false, null, null, request, response, this);
+    }
+    SubjectContext context = createSubjectContext();
+    ((WebSubjectContext) context).setServletRequest(request);
+    ((WebSubjectContext) context).setServletResponse(response);
+    return createSubject(context);
+  }
+
   /**
    * Creates a {@code Subject} instance for the user represented by the given method arguments.
    *
@@ -116,6 +139,11 @@ public class RestSecurityManager extends AuthorizingSecurityManager {
    */
   protected Subject createSubject(AuthenticationToken authenticationToken, AuthenticationInfo authenticationInfo,
                                   Subject existing) {
+    if (isDefaultSubjectFactory() && existing instanceof WebSubject) {
+      WebSubject webSubject = (WebSubject) existing;
+      return new RestDelegatingSubject(authenticationInfo.getPrincipals(), true, null, null,
+        webSubject.getServletRequest(), webSubject.getServletResponse(), this);
+    }
     SubjectContext context = createSubjectContext();
     context.setAuthenticated(true);
     context.setAuthenticationToken(authenticationToken);
@@ -126,6 +154,15 @@ public class RestSecurityManager extends AuthorizingSecurityManager {
     return createSubject(context);
   }
 
+  /**
+   * Determine whether subjects are created by the default {@code RestSubjectFactory}.
+   *
+   * @return true while the subject factory is exactly {@code RestSubjectFactory}.
+   */
+  protected boolean isDefaultSubjectFactory() {
+    return subjectFactory != null && subjectFactory.getClass() == RestSubjectFactory.class;
+  }
+
   /**
    * Creates a new {@code SubjectContext}.
    *
@@ -136,14 +173,20 @@ public class RestSecurityManager extends AuthorizingSecurityManager {
   }
 
   /**
-   * Copy a {@coce SubjectContext}.
+   * Copy a {@coce SubjectContext}, a non-web context such as the one built by {@code SecurityUtils.getSubject()}
+   * outside of a filtered request is copied into a {@code RestSubjectContext} without servlet request/response.
    *
    * @param subjectContext a {@code SubjectContext} instance.
    * @return a clone of {@code SubjectContext}.
    */
   protected SubjectContext copy(SubjectContext subjectContext) {
-    checkArgument(subjectContext instanceof WebSubjectContext);
-    return new RestSubjectContext((WebSubjectContext) subjectContext);
+    checkNotNull(subjectContext);
+    if (subjectContext instanceof WebSubjectContext) {
+      return new RestSubjectContext((WebSubjectContext) subjectContext);
+    }
+    RestSubjectContext context = new RestSubjectContext();
+    context.putAll(subjectContext);
+    return context;
   }
 
   /**
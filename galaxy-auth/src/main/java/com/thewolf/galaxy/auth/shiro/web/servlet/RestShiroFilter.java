@@ -17,16 +17,16 @@ package com.thewolf.galaxy.auth.shiro.web.servlet;
 
 import com.google.common.base.Throwables;
 import com.thewolf.galaxy.auth.shiro.web.mgt.RestSecurityManager;
-import com.thewolf.galaxy.auth.shiro.web.subject.support.RestSubjectBuilder;
+import com.thewolf.galaxy.auth.support.SecurityContext;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.subject.ExecutionException;
 import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
 import org.apache.shiro.web.filter.mgt.FilterChainResolver;
 import org.apache.shiro.web.servlet.OncePerRequestFilter;
-import org.apache.shiro.web.subject.WebSubject;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -35,11 +35,15 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Rest Shiro filter.
+ * The filter chain is resolved before anything else, requests without a configured chain skip request/response
+ * wrapping and subject creation altogether. Otherwise a {@code SecurityContext} is captured once the shiro filters
+ * passed.
  */
 @Getter
 @Setter
@@ -157,15 +161,20 @@ public class RestShiroFilter extends OncePerRequestFilter {
    *
    * @param request  servlet request.
    * @param response servlet response.
-   * @return web subject.
+   * @return subject.
    */
-  protected WebSubject createSubject(ServletRequest request, ServletResponse response) {
-    return new RestSubjectBuilder(getSecurityManager(), request, response).buildWebSubject();
+  protected Subject createSubject(ServletRequest request, ServletResponse response) {
+    return getSecurityManager().createSubject(request, response);
   }
 
   @Override
   protected void doFilterInternal(ServletRequest servletRequest, ServletResponse servletResponse,
                                   FilterChain filterChain) throws ServletException, IOException {
+    final FilterChain resolved = resolveChain(servletRequest, servletResponse, capturing(filterChain));
+    if (resolved == null) {
+      executeBypassed(servletRequest, servletResponse, filterChain);
+      return;
+    }
     Throwable t = null;
     try {
       final ServletRequest request = prepareServletRequest(servletRequest, servletResponse, filterChain);
@@ -174,7 +183,7 @@ public class RestShiroFilter extends OncePerRequestFilter {
       final Subject subject = createSubject(request, response);
 
       subject.execute(() -> {
-        executeChain(request, response, filterChain);
+        resolved.doFilter(request, response);
         return null;
       });
     } catch (ExecutionException ex) {
@@ -192,22 +201,50 @@ public class RestShiroFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Execute chain.
+   * Wrap original chain to capture the {@code SecurityContext} once shiro filters passed.
+   *
+   * @param filterChain filter chain.
+   * @return wrapped filter chain.
+   */
+  protected FilterChain capturing(FilterChain filterChain) {
+    return (request, response) -> {
+      SecurityContext previous = SecurityContext.bind(SecurityContext.capture());
+      try {
+        filterChain.doFilter(request, response);
+      } finally {
+        SecurityContext.restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Execute original chain without wrapping request/response or creating a subject, as no shiro filter applies.
+   * Only the {@code SecurityManager} is bound to the thread, so {@code SecurityUtils.getSubject()} still creates an
+   * anonymous subject on demand.
    *
    * @param request     servlet request.
    * @param response    servlet response.
-   * @param filterChain filter chain
+   * @param filterChain filter chain.
    * @throws IOException      if the underlying do filter call results in an {@code IOException}.
    * @throws ServletException if the underlying do filter call results in a {@code ServletException}.
    */
-  protected void executeChain(ServletRequest request, ServletResponse response, FilterChain filterChain)
+  protected void executeBypassed(ServletRequest request, ServletResponse response, FilterChain filterChain)
     throws IOException, ServletException {
-    FilterChain chain = getExecutionChain(request, response, filterChain);
-    chain.doFilter(request, response);
+    Map<Object, Object> original = ThreadContext.getResources();
+    ThreadContext.remove();
+    ThreadContext.bind(securityManager);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ThreadContext.remove();
+      if (original != null && !original.isEmpty()) {
+        ThreadContext.setResources(original);
+      }
+    }
   }
 
   /**
-   * Get filter chain.
+   * Get filter chain, falls back to the original chain while no chain is configured for the request.
    *
    * @param request     servlet request.
    * @param response    servlet response.
@@ -215,21 +252,30 @@ public class RestShiroFilter extends OncePerRequestFilter {
    * @return an instance of {@code FilterChain}.
    */
   protected FilterChain getExecutionChain(ServletRequest request, ServletResponse response, FilterChain filterChain) {
+    FilterChain resolved = resolveChain(request, response, filterChain);
+    return resolved != null ? resolved : filterChain;
+  }
+
+  /**
+   * Resolve configured filter chain of request.
+   *
+   * @param request     servlet request.
+   * @param response    servlet response.
+   * @param filterChain filter chain
+   * @return an instance of {@code FilterChain} or null while no chain is configured for the request.
+   */
+  protected FilterChain resolveChain(ServletRequest request, ServletResponse response, FilterChain filterChain) {
     if (filterChainResolver == null) {
-      log.debug("No FilterChainResolver configured.  Returning original FilterChain.");
-      return filterChain;
+      log.debug("No FilterChainResolver configured.  Bypassing shiro.");
+      return null;
     }
-
-    FilterChain chain = filterChain;
     FilterChain resolved = filterChainResolver.getChain(request, response, filterChain);
     if (resolved != null) {
       log.trace("Resolved a configured FilterChain for the current request.");
-      chain = resolved;
     } else {
-      log.trace("No FilterChain configured for the current request.  Using the default.");
+      log.trace("No FilterChain configured for the current request.  Bypassing shiro.");
     }
-
-    return chain;
+    return resolved;
   }
 
 }
@@ -40,7 +40,7 @@ public class RestDelegatingSubject extends WebDelegatingSubject {
    *
    * @param principals      principals.
    * @param authenticated   authenticated.
-   * @param host            host.
+   * @param host            host, resolved from servlet request on demand while null.
    * @param session         session, usually this is null.
    * @param request         servlet request.
    * @param response        servlet response.
@@ -51,6 +51,14 @@ public class RestDelegatingSubject extends WebDelegatingSubject {
     super(principals, authenticated, host, session, false, request, response, securityManager);
   }
 
+  @Override
+  public String getHost() {
+    if (host == null && getServletRequest() != null) {
+      host = getServletRequest().getRemoteHost();
+    }
+    return host;
+  }
+
   @Override
   public PrincipalCollection getPrincipals() {
     return principals;
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Interface for API key issued to a user. Only the SHA-256 digest of the key is known, the raw key is shown to its
+ * owner once when issued.
+ */
+public interface ApiKey {
+
+  /**
+   * Get key id.
+   *
+   * @return key id.
+   */
+  String getId();
+
+  /**
+   * Get lower case hex SHA-256 digest of the raw key.
+   *
+   * @return key digest.
+   */
+  String getDigest();
+
+  /**
+   * Get id of user the key authenticates as.
+   *
+   * @return user id.
+   */
+  String getUserId();
+
+  /**
+   * Get key status, revoked keys are inactive.
+   *
+   * @return boolean value indicates key active or not.
+   */
+  boolean isActive();
+
+  /**
+   * Get expiration time.
+   *
+   * @return expiration time or null while never expires.
+   */
+  ZonedDateTime getExpiresAt();
+
+  /**
+   * Get last modification time, used to load keys incrementally.
+   *
+   * @return last modification time.
+   */
+  ZonedDateTime getUpdatedAt();
+}
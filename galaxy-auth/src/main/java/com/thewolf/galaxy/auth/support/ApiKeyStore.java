@@ -0,0 +1,41 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+
+/**
+ * Interface for API key storage.
+ */
+public interface ApiKeyStore {
+
+  /**
+   * Find all keys.
+   *
+   * @return keys or empty collection while there's none.
+   */
+  Collection<? extends ApiKey> findAll();
+
+  /**
+   * Find keys modified at or after given time, revoked keys must be included as inactive rather than deleted so the
+   * change is picked up.
+   *
+   * @param since modification time.
+   * @return keys or empty collection while there's none.
+   */
+  Collection<? extends ApiKey> findUpdatedSince(ZonedDateTime since);
+}
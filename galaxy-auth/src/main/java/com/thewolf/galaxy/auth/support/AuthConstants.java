@@ -24,6 +24,8 @@ public interface AuthConstants {
 
   String AUTHORIZATION_TYPE = "bearer";
 
+  String API_KEY_HEADER = "X-API-Key";
+
   String SECRET_DEFAULT = "galaxy";
 
   String REFRESH_SECRET_DEFAULT = "galaxy";
@@ -32,8 +34,68 @@ public interface AuthConstants {
 
   long REFRESH_EXPIRES_IN_SECOND = 3600 * 24 * 7;
 
+  long VERIFIED_TOKEN_CACHE_SIZE = 10000;
+
   String ALGORITHM = "HS256";
 
+  String KEY_STORE_TYPE = "PKCS12";
+
+  long KEY_STORE_RELOAD_INTERVAL_SECOND = 300;
+
+  long KEY_STORE_ACTIVATION_DELAY_SECOND = 600;
+
+  int PASSWORD_HASHING_QUEUE_CAPACITY = 256;
+
+  long PASSWORD_HASHING_TIMEOUT_MILLIS = 5000;
+
   String TOKEN_TYPE = "bearer";
 
+  String FAMILY_CLAIM = "fam";
+
+  String AUTHORIZATION_CLAIM = "az";
+
+  long PERMISSION_DICTIONARY_REFRESH_INTERVAL_SECOND = 300;
+
+  long USER_LOADER_WINDOW_MILLIS = 2;
+
+  int USER_LOADER_MAX_BATCH_SIZE = 100;
+
+  long USER_LOADER_TIMEOUT_MILLIS = 3000;
+
+  long API_KEY_REFRESH_INTERVAL_SECOND = 30;
+
+  long API_KEY_REFRESH_OVERLAP_SECOND = 60;
+
+  int INTROSPECT_MAX_TOKENS = 500;
+
+  String TOKEN_FORMAT_JWT = "jwt";
+
+  String TOKEN_FORMAT_COMPACT = "compact";
+
+  String REVOCATION_STORE_MEMORY = "memory";
+
+  String REVOCATION_STORE_REDIS = "redis";
+
+  int REVOCATION_BLOOM_EXPECTED_INSERTIONS = 1000000;
+
+  long REVOCATION_BLOOM_REBUILD_INTERVAL_SECOND = 3600;
+
+  String AUDIT_SINK_JDBC = "jdbc";
+
+  String AUDIT_SINK_FILE = "file";
+
+  int AUDIT_BUFFER_CAPACITY = 8192;
+
+  int AUDIT_BATCH_SIZE = 256;
+
+  long AUDIT_FLUSH_INTERVAL_MILLIS = 1000;
+
+  String AUDIT_TABLE = "sys_auth_audit";
+
+  String AUDIT_DIRECTORY = "logs";
+
+  long AUDIT_MAX_FILE_SIZE_MB = 64;
+
+  int AUDIT_MAX_FILES = 10;
+
 }
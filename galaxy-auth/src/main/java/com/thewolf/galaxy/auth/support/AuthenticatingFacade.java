@@ -15,6 +15,11 @@
  */
 package com.thewolf.galaxy.auth.support;
 
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -53,4 +58,77 @@ public interface AuthenticatingFacade {
    * @return string permission list or empty set while there's none.
    */
   Set<String> findPermissionsByUserId(String id);
+
+  /**
+   * Find users by user ids, implementations should override this with a single query. Falls back to one
+   * {@code findUserById} call per id unless implemented.
+   *
+   * @param ids user ids.
+   * @return users by id, ids not found are absent.
+   */
+  default Map<String, AuthenticatingUser> findUsersByIds(Collection<String> ids) {
+    Map<String, AuthenticatingUser> users = Maps.newHashMapWithExpectedSize(ids.size());
+    for (String id : ids) {
+      AuthenticatingUser user = findUserById(id);
+      if (user != null) {
+        users.put(id, user);
+      }
+    }
+    return users;
+  }
+
+  /**
+   * Find roles and permissions by user ids, implementations should override this with a single query. Falls back to
+   * {@code findRolesByUserId} and {@code findPermissionsByUserId} per id unless implemented.
+   *
+   * @param ids user ids.
+   * @return authorization by user id, every given id is present.
+   */
+  default Map<String, UserAuthorization> findAuthorizationByUserIds(Collection<String> ids) {
+    Map<String, UserAuthorization> authorizations = Maps.newHashMapWithExpectedSize(ids.size());
+    for (String id : ids) {
+      authorizations.put(id, new UserAuthorization(findRolesByUserId(id), findPermissionsByUserId(id)));
+    }
+    return authorizations;
+  }
+
+  /**
+   * Find every role assignable to users, used to build the dictionary of self-contained authorization claims.
+   *
+   * @return roles or empty set while authorization claims are not supported.
+   */
+  default Set<String> findAllRoles() {
+    return Collections.emptySet();
+  }
+
+  /**
+   * Find every string permission assignable to users, used to build the dictionary of self-contained authorization
+   * claims.
+   *
+   * @return string permissions or empty set while authorization claims are not supported.
+   */
+  default Set<String> findAllPermissions() {
+    return Collections.emptySet();
+  }
+
+  /**
+   * Whether {@link #updatePassword(String, String)} persists passwords, outdated passwords are not re-encrypted on
+   * login otherwise.
+   *
+   * @return true while passwords can be updated.
+   */
+  default boolean supportsPasswordUpdate() {
+    return false;
+  }
+
+  /**
+   * Update encrypted password of user, called after a successful login when the stored password was encrypted with
+   * outdated hashing parameters. Passwords are not upgraded unless implemented along with
+   * {@link #supportsPasswordUpdate()}.
+   *
+   * @param id                user id.
+   * @param encryptedPassword password encrypted with current hashing parameters.
+   */
+  default void updatePassword(String id, String encryptedPassword) {
+  }
 }
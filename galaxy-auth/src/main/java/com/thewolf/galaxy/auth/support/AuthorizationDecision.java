@@ -0,0 +1,58 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Allow or deny decision of an authorization check, recorded for auditing.
+ */
+@Getter
+@RequiredArgsConstructor
+public class AuthorizationDecision {
+
+  /**
+   * Epoch milliseconds the decision was made at.
+   */
+  private final long timestamp;
+
+  private final Source source;
+
+  /**
+   * Id of the deciding user, null while anonymous.
+   */
+  private final String userId;
+
+  /**
+   * Request method and path for filters, {@code Class#method} for annotations.
+   */
+  private final String resource;
+
+  /**
+   * Required roles or permissions in filter notation, e.g. {@code perms[user:read]}.
+   */
+  private final String requirement;
+
+  private final boolean allowed;
+
+  /**
+   * Where the decision was made.
+   */
+  public enum Source {
+    PERMISSIONS_FILTER, ROLES_FILTER, ANNOTATION
+  }
+}
@@ -15,7 +15,6 @@
  */
 package com.thewolf.galaxy.auth.support;
 
-import org.apache.shiro.SecurityUtils;
 import org.springframework.core.MethodParameter;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
@@ -36,7 +35,7 @@ public class CurrentUserMethodArgumentResolver implements HandlerMethodArgumentR
   @Override
   public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
                                 NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
-    return SecurityUtils.getSubject().getPrincipal();
+    return SecurityContext.current().getUser();
   }
 
 }
@@ -0,0 +1,178 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import lombok.Getter;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectThreadState;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.ThreadState;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Immutable snapshot of the security context, captured once per request after authentication and propagated to
+ * other threads by {@code SecurityContextTaskDecorator} or {@code SecurityContextExecutor}.
+ * Reading the current context is one thread local lookup and no subject is created; outside of a captured context
+ * the subject bound by shiro is used, if any.
+ */
+@Getter
+public final class SecurityContext {
+
+  public static final SecurityContext ANONYMOUS = new SecurityContext(null, null, false);
+
+  private static final ThreadLocal<SecurityContext> CURRENT = new ThreadLocal<>();
+
+  private final Subject subject;
+
+  private final AuthenticatingUser user;
+
+  private final boolean authenticated;
+
+  private SecurityContext(Subject subject, AuthenticatingUser user, boolean authenticated) {
+    this.subject = subject;
+    this.user = user;
+    this.authenticated = authenticated;
+  }
+
+  /**
+   * Get current security context.
+   *
+   * @return current {@code SecurityContext}, {@code ANONYMOUS} while there's no subject.
+   */
+  public static SecurityContext current() {
+    SecurityContext context = CURRENT.get();
+    return context != null ? context : capture();
+  }
+
+  /**
+   * Capture security context from the subject bound by shiro.
+   *
+   * @return an instance of {@code SecurityContext}.
+   */
+  public static SecurityContext capture() {
+    return of(ThreadContext.getSubject());
+  }
+
+  /**
+   * Create security context of subject.
+   *
+   * @param subject subject, could be null.
+   * @return an instance of {@code SecurityContext}.
+   */
+  public static SecurityContext of(Subject subject) {
+    if (subject == null) {
+      return ANONYMOUS;
+    }
+    Object principal = subject.getPrincipal();
+    AuthenticatingUser user = principal instanceof AuthenticatingUser ? (AuthenticatingUser) principal : null;
+    return new SecurityContext(subject, user, subject.isAuthenticated() && user != null);
+  }
+
+  /**
+   * Bind security context to current thread.
+   *
+   * @param context security context to bind, null to unbind.
+   * @return previously bound context, should be passed to {@code restore} afterwards.
+   */
+  public static SecurityContext bind(SecurityContext context) {
+    SecurityContext previous = CURRENT.get();
+    if (context != null) {
+      CURRENT.set(context);
+    } else {
+      CURRENT.remove();
+    }
+    return previous;
+  }
+
+  /**
+   * Restore previously bound security context.
+   *
+   * @param previous context returned by {@code bind}.
+   */
+  public static void restore(SecurityContext previous) {
+    bind(previous);
+  }
+
+  /**
+   * Get id of authenticated user.
+   *
+   * @return user id or null while not authenticated.
+   */
+  public String getUserId() {
+    return authenticated ? user.getId() : null;
+  }
+
+  /**
+   * Wrap task to run within this security context, the subject is bound to shiro as well.
+   *
+   * @param task task.
+   * @return wrapped task.
+   */
+  public Runnable wrap(Runnable task) {
+    return () -> call(() -> {
+      task.run();
+      return null;
+    });
+  }
+
+  /**
+   * Wrap task to run within this security context, the subject is bound to shiro as well.
+   *
+   * @param task task.
+   * @param <V>  result type.
+   * @return wrapped task.
+   */
+  public <V> Callable<V> wrap(Callable<V> task) {
+    return () -> {
+      SecurityContext previous = bind(this);
+      ThreadState threadState = subject != null ? new SubjectThreadState(subject) : null;
+      if (threadState != null) {
+        threadState.bind();
+      }
+      try {
+        return task.call();
+      } finally {
+        if (threadState != null) {
+          threadState.restore();
+        }
+        restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wrap supplier to run within this security context, e.g. for {@code CompletableFuture.supplyAsync}.
+   *
+   * @param supplier supplier.
+   * @param <V>      result type.
+   * @return wrapped supplier.
+   */
+  public <V> Supplier<V> wrapSupplier(Supplier<V> supplier) {
+    return () -> call(supplier::get);
+  }
+
+  private <V> V call(Callable<V> task) {
+    try {
+      return wrap(task).call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
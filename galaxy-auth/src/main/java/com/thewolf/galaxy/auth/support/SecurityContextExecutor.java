@@ -0,0 +1,45 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@code Executor} propagating the security context of the submitting thread, e.g. for {@code CompletableFuture}
+ * fan-out within a request.
+ */
+public class SecurityContextExecutor implements Executor {
+
+  private final Executor delegate;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate executor running the tasks.
+   */
+  public SecurityContextExecutor(Executor delegate) {
+    checkNotNull(delegate);
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    delegate.execute(SecurityContext.current().wrap(command));
+  }
+
+}
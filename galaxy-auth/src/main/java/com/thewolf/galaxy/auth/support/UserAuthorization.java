@@ -0,0 +1,46 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.auth.support;
+
+import com.google.common.collect.ImmutableSet;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * Roles and string permissions of a user.
+ */
+@Getter
+public class UserAuthorization implements Serializable {
+
+  private static final long serialVersionUID = -5043158447622081137L;
+
+  private final Set<String> roles;
+
+  private final Set<String> permissions;
+
+  /**
+   * Constructor.
+   *
+   * @param roles       roles, could be null.
+   * @param permissions string permissions, could be null.
+   */
+  public UserAuthorization(Set<String> roles, Set<String> permissions) {
+    this.roles = roles != null ? ImmutableSet.copyOf(roles) : ImmutableSet.of();
+    this.permissions = permissions != null ? ImmutableSet.copyOf(permissions) : ImmutableSet.of();
+  }
+}
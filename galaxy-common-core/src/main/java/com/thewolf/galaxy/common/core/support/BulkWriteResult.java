@@ -0,0 +1,42 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.core.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Bulk write result.
+ */
+@Getter
+@AllArgsConstructor
+public class BulkWriteResult {
+
+  private final int rows;
+
+  private final int batches;
+
+  private final long elapsedMillis;
+
+  /**
+   * Get throughput of the write.
+   *
+   * @return rows written per second.
+   */
+  public long getRowsPerSecond() {
+    return rows * 1000L / Math.max(elapsedMillis, 1L);
+  }
+}
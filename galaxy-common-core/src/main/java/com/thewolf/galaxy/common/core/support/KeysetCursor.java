@@ -0,0 +1,70 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.core.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a keyset page, the key of the boundary row and the direction to seek from it.
+ * Cursors are exchanged with clients as opaque base64url strings.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+  private static final char FORWARD = 'n';
+
+  private static final char BACKWARD = 'p';
+
+  /**
+   * Key of the boundary row, exclusive.
+   */
+  private final String key;
+
+  /**
+   * Seek rows after the key while true, before the key otherwise.
+   */
+  private final boolean forward;
+
+  /**
+   * Encode cursor.
+   *
+   * @return opaque cursor string.
+   */
+  public String encode() {
+    String raw = (forward ? FORWARD : BACKWARD) + key;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode cursor.
+   *
+   * @param cursor opaque cursor string.
+   * @return an instance of {@code KeysetCursor}.
+   * @throws IllegalArgumentException if cursor is malformed.
+   */
+  public static KeysetCursor decode(String cursor) {
+    String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    if (raw.length() < 2 || raw.charAt(0) != FORWARD && raw.charAt(0) != BACKWARD) {
+      throw new IllegalArgumentException("Malformed cursor: " + cursor);
+    }
+    return new KeysetCursor(raw.substring(1), raw.charAt(0) == FORWARD);
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.core.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
+
+/**
+ * Keyset (seek) paginated result, pages are addressed by opaque cursors instead of page index.
+ *
+ * @param <T> entity class.
+ */
+@Getter
+@Setter
+public class KeysetPaginatedResult<T> {
+
+  private Integer size;
+
+  private Integer count;
+
+  private Long total;
+
+  /**
+   * Cursor of the following page, null on the last page.
+   */
+  private String nextCursor;
+
+  /**
+   * Cursor of the preceding page, null on the first page.
+   */
+  private String prevCursor;
+
+  private List<T> data;
+
+  /**
+   * Constructor without total.
+   *
+   * @param size       page size.
+   * @param nextCursor cursor of the following page.
+   * @param prevCursor cursor of the preceding page.
+   * @param data       data.
+   */
+  public KeysetPaginatedResult(Integer size, String nextCursor, String prevCursor, List<T> data) {
+    this.size = size;
+    this.nextCursor = nextCursor;
+    this.prevCursor = prevCursor;
+    this.data = data;
+    if (!CollectionUtils.isEmpty(data)) {
+      this.count = data.size();
+    } else {
+      this.count = 0;
+    }
+  }
+}
@@ -38,6 +38,11 @@ public class PaginatedResult<T> {
 
   private Long total;
 
+  /**
+   * True while total is an estimate, null otherwise.
+   */
+  private Boolean approximate;
+
   private List<T> data;
 
   /**
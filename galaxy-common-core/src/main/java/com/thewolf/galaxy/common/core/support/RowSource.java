@@ -0,0 +1,27 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.core.support;
+
+import java.io.Closeable;
+
+/**
+ * Rows read one at a time from an open resource such as a database cursor, iterable once.
+ * Close it to release the resource, whether or not all rows were read.
+ *
+ * @param <T> row type.
+ */
+public interface RowSource<T> extends Iterable<T>, Closeable {
+}
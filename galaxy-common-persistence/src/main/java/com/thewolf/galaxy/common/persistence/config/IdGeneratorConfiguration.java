@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.config;
+
+import com.thewolf.galaxy.common.persistence.id.IdGenerator;
+import com.thewolf.galaxy.common.persistence.id.JdbcWorkerIdAssigner;
+import com.thewolf.galaxy.common.persistence.id.SnowflakeIdGenerator;
+import com.thewolf.galaxy.common.persistence.id.WorkerIdAssigner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Id generator configuration, both beans could be replaced by custom implementations.
+ */
+@Configuration
+public class IdGeneratorConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean(WorkerIdAssigner.class)
+  WorkerIdAssigner workerIdAssigner(IdGeneratorProperties idGeneratorProperties, DataSource dataSource) {
+    int workerId = idGeneratorProperties.getWorkerId();
+    if (workerId < 0) {
+      return new JdbcWorkerIdAssigner(dataSource, idGeneratorProperties.getLeaseTable(),
+        idGeneratorProperties.getLeaseTtlSecond(), idGeneratorProperties.getMaxClockSkewMillis());
+    }
+    checkArgument(workerId <= SnowflakeIdGenerator.MAX_WORKER_ID, "worker id must not exceed %s",
+      SnowflakeIdGenerator.MAX_WORKER_ID);
+    return () -> workerId;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(IdGenerator.class)
+  IdGenerator idGenerator(WorkerIdAssigner workerIdAssigner, IdGeneratorProperties idGeneratorProperties) {
+    return new SnowflakeIdGenerator(workerIdAssigner, idGeneratorProperties.getMaxBlockSize());
+  }
+}
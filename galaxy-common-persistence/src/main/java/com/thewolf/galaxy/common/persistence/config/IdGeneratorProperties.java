@@ -0,0 +1,50 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Id generator properties.
+ */
+@Configuration
+@ConfigurationProperties("id-generator")
+@Setter
+@Getter
+public class IdGeneratorProperties {
+
+  /**
+   * Fixed worker id of this node within [0, 1023], negative to lease one from the datasource.
+   */
+  private int workerId = -1;
+
+  private String leaseTable = "sys_worker_node";
+
+  private long leaseTtlSecond = 60;
+
+  /**
+   * Maximum skew between the clocks of nodes and the database, widens the margin before an expired lease is taken over.
+   */
+  private long maxClockSkewMillis = 1000;
+
+  /**
+   * Maximum number of sequences a thread reserves at once.
+   */
+  private int maxBlockSize = 256;
+}
@@ -15,19 +15,36 @@
  */
 package com.thewolf.galaxy.common.persistence.config;
 
-import com.baomidou.mybatisplus.plugins.PaginationInterceptor;
 import com.baomidou.mybatisplus.plugins.PerformanceInterceptor;
+import com.thewolf.galaxy.common.persistence.plugin.CountStrategyPaginationInterceptor;
+import com.thewolf.galaxy.common.persistence.plugin.FetchSizeInterceptor;
 import org.apache.ibatis.plugin.Interceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProviders;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import javax.sql.DataSource;
+import java.util.List;
+
 @Configuration
 public class MybatisPlusConfiguration {
 
+  @Bean(destroyMethod = "shutdown")
+  Interceptor paginationInterceptor(PaginationProperties paginationProperties, DataSource dataSource,
+                                    ObjectProvider<List<DataSourcePoolMetadataProvider>> poolMetadataProviders) {
+    List<DataSourcePoolMetadataProvider> providers = poolMetadataProviders.getIfAvailable();
+    return new CountStrategyPaginationInterceptor(paginationProperties.getCountCacheTtlSecond(),
+      paginationProperties.getCountCacheMaximumSize(), paginationProperties.getCountEstimateThreshold(),
+      paginationProperties.getConcurrentCountThreads(),
+      providers != null ? new DataSourcePoolMetadataProviders(providers).getDataSourcePoolMetadata(dataSource) : null);
+  }
+
   @Bean
-  Interceptor paginationInterceptor() {
-    return new PaginationInterceptor();
+  Interceptor fetchSizeInterceptor() {
+    return new FetchSizeInterceptor();
   }
 
   @Bean
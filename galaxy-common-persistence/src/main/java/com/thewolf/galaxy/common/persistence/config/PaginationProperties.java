@@ -0,0 +1,49 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pagination properties, count strategies are chosen per query by {@code CountingPage}.
+ */
+@Configuration
+@ConfigurationProperties("pagination")
+@Setter
+@Getter
+public class PaginationProperties {
+
+  /**
+   * Lifetime of cached totals, 0 disables caching.
+   */
+  private long countCacheTtlSecond = 10;
+
+  private long countCacheMaximumSize = 10000;
+
+  /**
+   * Minimum row estimate of the query plan accepted as an approximate total.
+   */
+  private long countEstimateThreshold = 100000;
+
+  /**
+   * Threads counting on separate connections while pages are queried, 0 always counts inline. Counts also run inline
+   * unless the pool reports a free connection through its {@code DataSourcePoolMetadata}.
+   */
+  private int concurrentCountThreads = 4;
+}
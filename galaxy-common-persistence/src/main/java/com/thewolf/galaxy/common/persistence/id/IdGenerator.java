@@ -0,0 +1,52 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.id;
+
+/**
+ * Generator of unique ids for persistent models.
+ */
+public interface IdGenerator {
+
+  /**
+   * Generate id.
+   *
+   * @return unique id.
+   */
+  long nextLong();
+
+  /**
+   * Generate id as string, the type of {@code BaseModel} ids.
+   *
+   * @return unique id.
+   */
+  default String nextId() {
+    return Long.toString(nextLong());
+  }
+
+  /**
+   * Generate ids for bulk inserts.
+   *
+   * @param count number of ids.
+   * @return unique ids in ascending order.
+   */
+  default long[] nextLongs(int count) {
+    long[] ids = new long[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = nextLong();
+    }
+    return ids;
+  }
+}
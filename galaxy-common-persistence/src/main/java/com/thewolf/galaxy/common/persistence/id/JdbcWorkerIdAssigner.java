@@ -0,0 +1,176 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.id;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@code WorkerIdAssigner} leasing worker ids from a database table, so nodes sharing the datasource never generate
+ * ids with the same worker id. Leases are renewed at a third of their lifetime and a lost lease is replaced by a newly
+ * acquired id. The worker id is refused once the lease could not be renewed before it expired.
+ * Lease times are taken from the database clock, and an expired lease is only taken over once it expired for the
+ * takeover margin, covering ids its previous holder borrowed ahead of its clock and the skew between node clocks.
+ */
+@Slf4j
+public class JdbcWorkerIdAssigner implements WorkerIdAssigner {
+
+  private static final String DB_NOW_MILLIS = "CAST(UNIX_TIMESTAMP(NOW(3)) * 1000 AS SIGNED)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final String table;
+
+  private final long leaseTtlMillis;
+
+  private final long takeoverMarginMillis;
+
+  private final String owner;
+
+  private volatile int workerId = -1;
+
+  private volatile long leaseExpiresAt;
+
+  private ScheduledExecutorService renewer;
+
+  /**
+   * Constructor.
+   *
+   * @param dataSource         an instance of {@code DataSource}.
+   * @param table              lease table name.
+   * @param leaseTtlSecond     lifetime of a lease.
+   * @param maxClockSkewMillis maximum skew between the clocks of nodes and database.
+   */
+  public JdbcWorkerIdAssigner(DataSource dataSource, String table, long leaseTtlSecond, long maxClockSkewMillis) {
+    checkNotNull(dataSource);
+    checkArgument(table != null && table.matches("[A-Za-z_][A-Za-z0-9_.]*"), "invalid lease table name");
+    checkArgument(leaseTtlSecond > 0, "leaseTtlSecond must be positive");
+    checkArgument(maxClockSkewMillis >= 0, "maxClockSkewMillis must not be negative");
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.table = table;
+    this.leaseTtlMillis = TimeUnit.SECONDS.toMillis(leaseTtlSecond);
+    this.takeoverMarginMillis = SnowflakeIdGenerator.MAX_BORROW_MILLIS + 2 * maxClockSkewMillis;
+    this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+  }
+
+  /**
+   * Acquire a worker id and schedule renewing.
+   */
+  @PostConstruct
+  public void start() {
+    acquire();
+    long interval = leaseTtlMillis / 3;
+    renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("worker-id-lease-renewer").setDaemon(true).build());
+    renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop renewing and release the lease, it is taken over after the takeover margin like an expired one.
+   */
+  @PreDestroy
+  public void stop() {
+    if (renewer != null) {
+      renewer.shutdownNow();
+    }
+    if (workerId >= 0) {
+      leaseExpiresAt = 0;
+      jdbcTemplate.update("UPDATE " + table + " SET expires_at = " + DB_NOW_MILLIS
+        + " WHERE worker_id = ? AND owner = ?", workerId, owner);
+    }
+  }
+
+  @Override
+  public int getWorkerId() {
+    checkState(workerId >= 0 && System.currentTimeMillis() < leaseExpiresAt, "Worker id lease is not held.");
+    return workerId;
+  }
+
+  private synchronized void acquire() {
+    Set<Integer> leased = new HashSet<>(jdbcTemplate.queryForList(
+      "SELECT worker_id FROM " + table + " WHERE expires_at >= " + DB_NOW_MILLIS + " - ?", Integer.class,
+      takeoverMarginMillis));
+    int size = SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+    // start at a random id so nodes booting together rarely race for the same row
+    int offset = ThreadLocalRandom.current().nextInt(size);
+    for (int i = 0; i < size; i++) {
+      int candidate = (offset + i) % size;
+      if (leased.contains(candidate)) {
+        continue;
+      }
+      // the lease ends in the database after the statement started, so this node stops no later than others resume
+      long expiresAt = System.currentTimeMillis() + leaseTtlMillis;
+      if (tryLease(candidate)) {
+        workerId = candidate;
+        leaseExpiresAt = expiresAt;
+        log.info("Leased worker id {} until {}.", candidate, expiresAt);
+        return;
+      }
+    }
+    throw new IllegalStateException("No worker id available in " + table);
+  }
+
+  private boolean tryLease(int candidate) {
+    int updated = jdbcTemplate.update("UPDATE " + table + " SET owner = ?, expires_at = " + DB_NOW_MILLIS + " + ? "
+      + "WHERE worker_id = ? AND expires_at < " + DB_NOW_MILLIS + " - ?", owner, leaseTtlMillis, candidate,
+      takeoverMarginMillis);
+    if (updated > 0) {
+      return true;
+    }
+    try {
+      jdbcTemplate.update("INSERT INTO " + table + " (worker_id, owner, expires_at) VALUES (?, ?, " + DB_NOW_MILLIS
+        + " + ?)", candidate, owner, leaseTtlMillis);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  private void renew() {
+    try {
+      long expiresAt = System.currentTimeMillis() + leaseTtlMillis;
+      int updated = jdbcTemplate.update("UPDATE " + table + " SET expires_at = " + DB_NOW_MILLIS
+        + " + ? WHERE worker_id = ? AND owner = ?", leaseTtlMillis, workerId, owner);
+      if (updated > 0) {
+        leaseExpiresAt = expiresAt;
+        return;
+      }
+      log.error("Lost lease of worker id {}, acquiring another one.", workerId);
+      acquire();
+    } catch (DataAccessException | IllegalStateException e) {
+      log.warn("Failed to renew lease of worker id {}.", workerId, e);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Lock-free snowflake id generator, ids are {@code timestamp << 22 | workerId << 12 | sequence} with the epoch and
+ * layout of mybatis-plus {@code IdWorker}, so they keep sorting after ids it generated before.
+ * Timestamp and sequence form a single counter advanced by CAS, a full millisecond borrows the next one up to
+ * {@link #MAX_BORROW_MILLIS} ahead of the clock, and a clock moving backwards keeps counting from the last id.
+ * Each thread reserves a block of sequences at once, blocks start at one id and double while a thread exhausts them
+ * within the same millisecond, so bulk inserts touch the shared counter rarely.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+  public static final long EPOCH = 1288834974657L;
+
+  public static final int MAX_WORKER_ID = 1023;
+
+  public static final long MAX_BORROW_MILLIS = 100;
+
+  private static final int SEQUENCE_BITS = 12;
+
+  private static final int TIMESTAMP_SHIFT = 22;
+
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private static final int SEQUENCES_PER_MILLI = 1 << SEQUENCE_BITS;
+
+  private final WorkerIdAssigner workerIdAssigner;
+
+  private final int maxBlockSize;
+
+  private final AtomicLong counter = new AtomicLong();
+
+  private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+  /**
+   * Constructor.
+   *
+   * @param workerIdAssigner an instance of {@code WorkerIdAssigner}.
+   * @param maxBlockSize     maximum number of sequences reserved by a thread at once.
+   */
+  public SnowflakeIdGenerator(WorkerIdAssigner workerIdAssigner, int maxBlockSize) {
+    checkNotNull(workerIdAssigner);
+    checkArgument(maxBlockSize > 0 && maxBlockSize <= SEQUENCES_PER_MILLI,
+      "maxBlockSize must be in (0, %s]", SEQUENCES_PER_MILLI);
+    this.workerIdAssigner = workerIdAssigner;
+    this.maxBlockSize = maxBlockSize;
+  }
+
+  @Override
+  public long nextLong() {
+    long now = System.currentTimeMillis();
+    Block block = blocks.get();
+    if (block.next == block.end || block.millis != now) {
+      boolean exhausted = block.next == block.end && block.millis == now;
+      block.size = exhausted ? Math.min(block.size << 1, maxBlockSize) : 1;
+      block.next = reserve(block.size);
+      block.end = block.next + block.size;
+      block.millis = now;
+    }
+    return compose(block.next++, workerId());
+  }
+
+  @Override
+  public long[] nextLongs(int count) {
+    checkArgument(count >= 0, "count must not be negative");
+    long[] ids = new long[count];
+    int workerId = workerId();
+    int filled = 0;
+    while (filled < count) {
+      int size = Math.min(count - filled, SEQUENCES_PER_MILLI);
+      long start = reserve(size);
+      for (int i = 0; i < size; i++) {
+        ids[filled++] = compose(start + i, workerId);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Reserve consecutive counter values.
+   *
+   * @param size number of values.
+   * @return first reserved value.
+   */
+  private long reserve(int size) {
+    while (true) {
+      long clock = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+      long current = counter.get();
+      long start = Math.max(current, clock);
+      if (start + size - clock > MAX_BORROW_MILLIS << SEQUENCE_BITS) {
+        Thread.yield();
+        continue;
+      }
+      if (counter.compareAndSet(current, start + size)) {
+        return start;
+      }
+    }
+  }
+
+  private int workerId() {
+    int workerId = workerIdAssigner.getWorkerId();
+    checkState(workerId >= 0 && workerId <= MAX_WORKER_ID, "Invalid worker id %s", workerId);
+    return workerId;
+  }
+
+  private static long compose(long value, int workerId) {
+    return (value >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT | (long) workerId << SEQUENCE_BITS | value & SEQUENCE_MASK;
+  }
+
+  /**
+   * Sequences reserved by a thread.
+   */
+  private static class Block {
+
+    private long next;
+
+    private long end;
+
+    private long millis;
+
+    private int size;
+
+  }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.id;
+
+/**
+ * Source of the worker id distinguishing ids generated by this node.
+ */
+public interface WorkerIdAssigner {
+
+  /**
+   * Get current worker id, the id may change once a lease is lost and another one is acquired.
+   *
+   * @return worker id within [0, {@link SnowflakeIdGenerator#MAX_WORKER_ID}].
+   */
+  int getWorkerId();
+
+}
@@ -33,7 +33,10 @@ import java.time.ZonedDateTime;
 @Setter
 public abstract class BaseModel<T extends Model> extends Model<T> {
 
-  @TableId(value = "id", type = IdType.ID_WORKER)
+  /**
+   * Filled by {@code AuditObjectHandler} with the {@code IdGenerator} while absent on insert.
+   */
+  @TableId(value = "id", type = IdType.INPUT)
   protected String id;
 
   @TableField(value = "created_at", fill = FieldFill.INSERT)
@@ -17,19 +17,26 @@ package com.thewolf.galaxy.common.persistence.plugin;
 
 import com.baomidou.mybatisplus.mapper.MetaObjectHandler;
 import com.thewolf.galaxy.common.core.utils.SpringContextUtils;
+import com.thewolf.galaxy.common.persistence.id.IdGenerator;
+import com.thewolf.galaxy.common.persistence.model.BaseModel;
 import org.apache.ibatis.reflection.MetaObject;
 
 import java.time.ZonedDateTime;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Meta object handler for auditing.
+ * Meta object handler for auditing, also assigns ids of {@code BaseModel} from {@code IdGenerator}.
  */
 public class AuditObjectHandler extends MetaObjectHandler {
 
+  private static final ThreadLocal<Boolean> PREFILLED = new ThreadLocal<>();
+
   private AuditorAware auditorAware;
 
+  private IdGenerator idGenerator;
+
   private AuditorAware checkAuditorAware() {
     if (auditorAware == null) {
       auditorAware = SpringContextUtils.getBean(AuditorAware.class);
@@ -38,8 +45,41 @@ public class AuditObjectHandler extends MetaObjectHandler {
     return auditorAware;
   }
 
+  private IdGenerator checkIdGenerator() {
+    if (idGenerator == null) {
+      idGenerator = SpringContextUtils.getBean(IdGenerator.class);
+      checkNotNull(idGenerator);
+    }
+    return idGenerator;
+  }
+
+  /**
+   * Run action with filling skipped on current thread, for callers that fill ids and audit columns themselves.
+   *
+   * @param action action writing prefilled models.
+   * @param <R>    result type.
+   * @return result of action.
+   */
+  public static <R> R prefilled(Supplier<R> action) {
+    Boolean previous = PREFILLED.get();
+    PREFILLED.set(Boolean.TRUE);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        PREFILLED.remove();
+      }
+    }
+  }
+
   @Override
   public void insertFill(MetaObject metaObject) {
+    if (PREFILLED.get() != null) {
+      return;
+    }
+    if (metaObject.getOriginalObject() instanceof BaseModel && getFieldValByName("id", metaObject) == null) {
+      setFieldValByName("id", checkIdGenerator().nextId(), metaObject);
+    }
     ZonedDateTime now = ZonedDateTime.now();
     setFieldValByName("createdAt", now, metaObject);
     setFieldValByName("updatedAt", now, metaObject);
@@ -52,6 +92,9 @@ public class AuditObjectHandler extends MetaObjectHandler {
 
   @Override
   public void updateFill(MetaObject metaObject) {
+    if (PREFILLED.get() != null) {
+      return;
+    }
     setFieldValByName("updatedAt", ZonedDateTime.now(), metaObject);
     String auditor = checkAuditorAware().getCurrentAuditor();
     if (auditor != null) {
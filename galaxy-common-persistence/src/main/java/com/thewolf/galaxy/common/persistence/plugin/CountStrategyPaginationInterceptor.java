@@ -0,0 +1,365 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.plugin;
+
+import com.baomidou.mybatisplus.plugins.PaginationInterceptor;
+import com.baomidou.mybatisplus.plugins.pagination.Pagination;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadata;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@code PaginationInterceptor} applying the count strategies of {@code CountingPage}: totals are cached per
+ * normalized count sql and parameters for a short while, large results may be answered by the row estimate of the
+ * query plan (MySQL {@code EXPLAIN}), and the count may run on a separate connection while the page is queried.
+ * The concurrent count is joined once the page query returns, page overflow correction does not apply to it. It only
+ * runs while the pool reports a free connection and a count thread is free, otherwise, and when it fails, the total
+ * is counted inline on the connection of the page query.
+ */
+@Slf4j
+@Intercepts({
+  @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}),
+  @Signature(type = Executor.class, method = "query",
+    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})})
+public class CountStrategyPaginationInterceptor extends PaginationInterceptor {
+
+  private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+  private static final String ROWS_COLUMN = "rows";
+
+  private static final int QUEUE_SIZE_PER_THREAD = 16;
+
+  private static final ThreadLocal<PendingCount> PENDING_COUNT = new ThreadLocal<>();
+
+  private final Cache<CountKey, Total> totals;
+
+  private final long estimateThreshold;
+
+  private final ExecutorService countExecutor;
+
+  private final DataSourcePoolMetadata poolMetadata;
+
+  /**
+   * Constructor.
+   *
+   * @param cacheTtlSecond         lifetime of cached totals, 0 disables caching.
+   * @param cacheMaximumSize       maximum number of cached totals.
+   * @param estimateThreshold      minimum row estimate accepted as total.
+   * @param concurrentCountThreads threads counting concurrently, 0 counts inline.
+   * @param poolMetadata           metadata of the connection pool, null counts inline.
+   */
+  public CountStrategyPaginationInterceptor(long cacheTtlSecond, long cacheMaximumSize, long estimateThreshold,
+                                            int concurrentCountThreads, DataSourcePoolMetadata poolMetadata) {
+    super();
+    checkArgument(cacheTtlSecond >= 0, "cacheTtlSecond must not be negative");
+    checkArgument(cacheMaximumSize > 0, "cacheMaximumSize must be positive");
+    checkArgument(estimateThreshold > 0, "estimateThreshold must be positive");
+    checkArgument(concurrentCountThreads >= 0, "concurrentCountThreads must not be negative");
+    this.totals = cacheTtlSecond > 0
+      ? CacheBuilder.newBuilder().maximumSize(cacheMaximumSize).expireAfterWrite(cacheTtlSecond, TimeUnit.SECONDS)
+      .build() : null;
+    this.estimateThreshold = estimateThreshold;
+    this.countExecutor = concurrentCountThreads > 0
+      ? new ThreadPoolExecutor(concurrentCountThreads, concurrentCountThreads, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(concurrentCountThreads * QUEUE_SIZE_PER_THREAD),
+      new ThreadFactoryBuilder().setNameFormat("pagination-count-%d").setDaemon(true).build(),
+      new ThreadPoolExecutor.AbortPolicy()) : null;
+    this.poolMetadata = poolMetadata;
+  }
+
+  /**
+   * Stop counting threads.
+   */
+  public void shutdown() {
+    if (countExecutor != null) {
+      countExecutor.shutdownNow();
+    }
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    if (target instanceof StatementHandler || target instanceof Executor) {
+      return Plugin.wrap(target, this);
+    }
+    return target;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (!(invocation.getTarget() instanceof Executor)) {
+      return super.intercept(invocation);
+    }
+    boolean completed = false;
+    try {
+      Object result = invocation.proceed();
+      completed = true;
+      return result;
+    } finally {
+      completePendingCount((Executor) invocation.getTarget(), invocation.getArgs()[2], completed);
+    }
+  }
+
+  @Override
+  protected void queryTotal(boolean overflowCurrent, String sql, MappedStatement mappedStatement, BoundSql boundSql,
+                            Pagination page, Connection connection) {
+    if (!(page instanceof CountingPage)) {
+      super.queryTotal(overflowCurrent, sql, mappedStatement, boundSql, page, connection);
+      return;
+    }
+    CountingPage<?> countingPage = (CountingPage<?>) page;
+    Configuration configuration = mappedStatement.getConfiguration();
+    List<ParameterMapping> mappings = boundSql.getParameterMappings();
+    List<Object> parameters = parameterValues(configuration, boundSql);
+    CountKey key = new CountKey(WHITESPACES.matcher(sql).replaceAll(" ").trim(), parameters);
+    Total cached = countingPage.isCacheTotal() && totals != null ? totals.getIfPresent(key) : null;
+    if (cached != null) {
+      applyTotal(countingPage, cached, overflowCurrent);
+      return;
+    }
+    try {
+      if (countingPage.isEstimateTotal()) {
+        long estimate = queryLong("EXPLAIN " + sql, configuration, mappings, parameters, connection, ROWS_COLUMN);
+        if (estimate >= estimateThreshold) {
+          cacheAndApply(countingPage, key, new Total(estimate, true), overflowCurrent);
+          return;
+        }
+      }
+      if (countingPage.isConcurrentCount() && countExecutor != null
+        && !TransactionSynchronizationManager.isActualTransactionActive() && hasFreeConnection()) {
+        DataSource dataSource = configuration.getEnvironment().getDataSource();
+        try {
+          Future<Long> future = countExecutor.submit(() -> {
+            try (Connection countConnection = dataSource.getConnection()) {
+              return queryLong(sql, configuration, mappings, parameters, countConnection, null);
+            }
+          });
+          PENDING_COUNT.set(new PendingCount(countingPage, key, future, sql, configuration, mappings, parameters));
+          // any positive total lets the page query run, the real one is set once the count is joined
+          page.setTotal(Integer.MAX_VALUE);
+          return;
+        } catch (RejectedExecutionException e) {
+          log.debug("Count threads busy, counting inline.");
+        }
+      }
+      long total = queryLong(sql, configuration, mappings, parameters, connection, null);
+      cacheAndApply(countingPage, key, new Total(total, false), overflowCurrent);
+    } catch (SQLException e) {
+      log.error("Failed to count paginated query.", e);
+    }
+  }
+
+  /**
+   * Whether the pool reports a connection that can be borrowed without waiting.
+   */
+  private boolean hasFreeConnection() {
+    if (poolMetadata == null) {
+      return false;
+    }
+    Integer active = poolMetadata.getActive();
+    Integer max = poolMetadata.getMax();
+    return active != null && max != null && (max < 0 || active < max);
+  }
+
+  private void completePendingCount(Executor executor, Object rowBounds, boolean completed)
+    throws InterruptedException {
+    PendingCount pending = PENDING_COUNT.get();
+    if (pending == null || pending.getPage() != rowBounds) {
+      return;
+    }
+    PENDING_COUNT.remove();
+    if (!completed) {
+      pending.getFuture().cancel(true);
+      return;
+    }
+    long total;
+    try {
+      total = pending.getFuture().get();
+    } catch (ExecutionException e) {
+      log.warn("Failed to count paginated query concurrently, counting inline.", e.getCause());
+      try {
+        total = queryLong(pending.getSql(), pending.getConfiguration(), pending.getMappings(),
+          pending.getParameters(), executor.getTransaction().getConnection(), null);
+      } catch (SQLException ex) {
+        throw new PersistenceException("Failed to count paginated query.", ex);
+      }
+    }
+    cacheAndApply(pending.getPage(), pending.getKey(), new Total(total, false), false);
+  }
+
+  private void cacheAndApply(CountingPage<?> page, CountKey key, Total total, boolean overflowCurrent) {
+    if (page.isCacheTotal() && totals != null) {
+      totals.put(key, total);
+    }
+    applyTotal(page, total, overflowCurrent);
+  }
+
+  private static void applyTotal(CountingPage<?> page, Total total, boolean overflowCurrent) {
+    page.setTotal(Ints.saturatedCast(total.getValue()));
+    page.setApproximate(total.isApproximate());
+    if (overflowCurrent && page.getPages() > 0 && page.getCurrent() > page.getPages()) {
+      page.setCurrent(1);
+    }
+  }
+
+  /**
+   * Resolve parameter values the way {@code DefaultParameterHandler} does.
+   *
+   * @param configuration mybatis configuration.
+   * @param boundSql      bound sql of the page query.
+   * @return parameter values in placeholder order.
+   */
+  private static List<Object> parameterValues(Configuration configuration, BoundSql boundSql) {
+    List<ParameterMapping> mappings = boundSql.getParameterMappings();
+    if (mappings == null || mappings.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Object parameterObject = boundSql.getParameterObject();
+    List<Object> values = Lists.newArrayListWithCapacity(mappings.size());
+    for (ParameterMapping mapping : mappings) {
+      if (mapping.getMode() == ParameterMode.OUT) {
+        values.add(null);
+        continue;
+      }
+      String property = mapping.getProperty();
+      if (boundSql.hasAdditionalParameter(property)) {
+        values.add(boundSql.getAdditionalParameter(property));
+      } else if (parameterObject == null) {
+        values.add(null);
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        values.add(parameterObject);
+      } else {
+        values.add(configuration.newMetaObject(parameterObject).getValue(property));
+      }
+    }
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static long queryLong(String sql, Configuration configuration, List<ParameterMapping> mappings,
+                                List<Object> parameters, Connection connection, String column) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < parameters.size(); i++) {
+        ParameterMapping mapping = mappings.get(i);
+        if (mapping.getMode() == ParameterMode.OUT) {
+          continue;
+        }
+        Object value = parameters.get(i);
+        JdbcType jdbcType = mapping.getJdbcType();
+        if (value == null && jdbcType == null) {
+          jdbcType = configuration.getJdbcTypeForNull();
+        }
+        ((TypeHandler<Object>) mapping.getTypeHandler()).setParameter(statement, i + 1, value, jdbcType);
+      }
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (!resultSet.next()) {
+          return 0;
+        }
+        return column != null ? resultSet.getLong(column) : resultSet.getLong(1);
+      }
+    }
+  }
+
+  /**
+   * Cache key of a count query.
+   */
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static class CountKey {
+
+    private final String sql;
+
+    private final List<Object> parameters;
+
+  }
+
+  /**
+   * Counted or estimated total.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class Total {
+
+    private final long value;
+
+    private final boolean approximate;
+
+  }
+
+  /**
+   * Count running concurrently with the page query of the current thread.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class PendingCount {
+
+    private final CountingPage<?> page;
+
+    private final CountKey key;
+
+    private final Future<Long> future;
+
+    private final String sql;
+
+    private final Configuration configuration;
+
+    private final List<ParameterMapping> mappings;
+
+    private final List<Object> parameters;
+
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.plugin;
+
+import com.baomidou.mybatisplus.plugins.Page;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * {@code Page} choosing how {@code CountStrategyPaginationInterceptor} obtains its total. Totals of plain pages are
+ * always counted exactly.
+ *
+ * @param <T> record type.
+ */
+@Getter
+public class CountingPage<T> extends Page<T> {
+
+  private static final long serialVersionUID = 6270442167286839412L;
+
+  /**
+   * Reuse a total counted recently for the same query and parameters.
+   */
+  private boolean cacheTotal = true;
+
+  /**
+   * Accept the row estimate of the query plan once it is above the estimate threshold.
+   */
+  private boolean estimateTotal;
+
+  /**
+   * Count on a separate connection while the page is queried, ignored within transactions or while the pool has no
+   * free connection.
+   */
+  private boolean concurrentCount;
+
+  /**
+   * Whether the total is an estimate, set by the interceptor.
+   */
+  @Setter(AccessLevel.PACKAGE)
+  private boolean approximate;
+
+  /**
+   * Constructor.
+   *
+   * @param current page index, starting from 1.
+   * @param size    page size.
+   */
+  public CountingPage(int current, int size) {
+    super(current, size);
+  }
+
+  public CountingPage<T> setCacheTotal(boolean cacheTotal) {
+    this.cacheTotal = cacheTotal;
+    return this;
+  }
+
+  public CountingPage<T> setEstimateTotal(boolean estimateTotal) {
+    this.estimateTotal = estimateTotal;
+    return this;
+  }
+
+  public CountingPage<T> setConcurrentCount(boolean concurrentCount) {
+    this.concurrentCount = concurrentCount;
+    return this;
+  }
+}
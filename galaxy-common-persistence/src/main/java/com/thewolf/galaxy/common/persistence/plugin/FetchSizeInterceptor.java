@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.plugin;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Interceptor overriding the fetch size of statements prepared within {@link #withFetchSize(int, Supplier)}.
+ * {@link #STREAMING} makes the MySQL driver stream rows one at a time instead of reading the whole result, without
+ * enabling {@code useCursorFetch} and its server side prepared statements for every other statement.
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class FetchSizeInterceptor implements Interceptor {
+
+  /**
+   * Fetch size streaming rows of the MySQL driver, the connection can not run other statements until the result
+   * set is closed.
+   */
+  public static final int STREAMING = Integer.MIN_VALUE;
+
+  private static final ThreadLocal<Integer> FETCH_SIZE = new ThreadLocal<>();
+
+  /**
+   * Run action with the fetch size of statements prepared on current thread overridden.
+   *
+   * @param fetchSize rows fetched per round trip or {@link #STREAMING}.
+   * @param action    action preparing statements.
+   * @param <R>       result type.
+   * @return result of action.
+   */
+  public static <R> R withFetchSize(int fetchSize, Supplier<R> action) {
+    checkArgument(fetchSize > 0 || fetchSize == STREAMING, "fetchSize must be positive or STREAMING");
+    Integer previous = FETCH_SIZE.get();
+    FETCH_SIZE.set(fetchSize);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        FETCH_SIZE.remove();
+      } else {
+        FETCH_SIZE.set(previous);
+      }
+    }
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    Object statement = invocation.proceed();
+    Integer fetchSize = FETCH_SIZE.get();
+    if (fetchSize != null) {
+      ((Statement) statement).setFetchSize(fetchSize);
+    }
+    return statement;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    if (target instanceof StatementHandler) {
+      return Plugin.wrap(target, this);
+    }
+    return target;
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+  }
+}
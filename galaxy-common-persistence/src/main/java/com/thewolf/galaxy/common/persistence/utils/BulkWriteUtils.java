@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.utils;
+
+import com.baomidou.mybatisplus.enums.SqlMethod;
+import com.baomidou.mybatisplus.mapper.SqlHelper;
+import com.thewolf.galaxy.common.core.support.BulkWriteResult;
+import com.thewolf.galaxy.common.core.utils.SpringContextUtils;
+import com.thewolf.galaxy.common.persistence.id.IdGenerator;
+import com.thewolf.galaxy.common.persistence.model.BaseModel;
+import com.thewolf.galaxy.common.persistence.plugin.AuditObjectHandler;
+import com.thewolf.galaxy.common.persistence.plugin.AuditorAware;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.session.SqlSession;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bulk write utils over jdbc batches, enable {@code rewriteBatchedStatements} of the mysql driver to send each batch
+ * as multi-row statements.
+ * Ids and audit columns are filled once per batch with a shared timestamp and the auditor resolved once per call,
+ * instead of per row by {@code AuditObjectHandler}. Call within a transaction to commit all batches atomically.
+ */
+@Slf4j
+public class BulkWriteUtils {
+
+  private static final String ENTITY_PARAM = "et";
+
+  private BulkWriteUtils() {
+  }
+
+  /**
+   * Insert models with all columns in batches, ids absent are assigned from {@code IdGenerator}.
+   *
+   * @param models    models of the same class.
+   * @param batchSize rows per jdbc batch.
+   * @param <T>       model type.
+   * @return write result.
+   */
+  public static <T extends BaseModel<T>> BulkWriteResult insertBatch(List<T> models, int batchSize) {
+    return write(models, batchSize, SqlMethod.INSERT_ONE_ALL_COLUMN, true);
+  }
+
+  /**
+   * Update models by id in batches, columns of null fields are left untouched, so consecutive models should set the
+   * same fields to share statements.
+   *
+   * @param models    models of the same class.
+   * @param batchSize rows per jdbc batch.
+   * @param <T>       model type.
+   * @return write result.
+   */
+  public static <T extends BaseModel<T>> BulkWriteResult updateBatchById(List<T> models, int batchSize) {
+    return write(models, batchSize, SqlMethod.UPDATE_BY_ID, false);
+  }
+
+  /**
+   * Update all columns of models by id in batches.
+   *
+   * @param models    models of the same class.
+   * @param batchSize rows per jdbc batch.
+   * @param <T>       model type.
+   * @return write result.
+   */
+  public static <T extends BaseModel<T>> BulkWriteResult updateAllColumnBatchById(List<T> models, int batchSize) {
+    return write(models, batchSize, SqlMethod.UPDATE_ALL_COLUMN_BY_ID, false);
+  }
+
+  private static <T extends BaseModel<T>> BulkWriteResult write(List<T> models, int batchSize, SqlMethod sqlMethod,
+                                                                boolean insert) {
+    checkNotNull(models);
+    checkArgument(batchSize > 0, "batchSize must be positive");
+    if (models.isEmpty()) {
+      return new BulkWriteResult(0, 0, 0L);
+    }
+    Class<?> modelClass = models.get(0).getClass();
+    String statement = SqlHelper.table(modelClass).getSqlStatement(sqlMethod.getMethod());
+    String auditor = SpringContextUtils.getBean(AuditorAware.class).getCurrentAuditor();
+    IdGenerator idGenerator = insert ? SpringContextUtils.getBean(IdGenerator.class) : null;
+    long start = System.nanoTime();
+    int batches = AuditObjectHandler.prefilled(() -> {
+      int count = 0;
+      try (SqlSession session = SqlHelper.sqlSessionBatch(modelClass)) {
+        for (int from = 0; from < models.size(); from += batchSize) {
+          List<T> batch = models.subList(from, Math.min(from + batchSize, models.size()));
+          if (insert) {
+            fillInsert(batch, idGenerator, auditor);
+            for (T model : batch) {
+              session.insert(statement, model);
+            }
+          } else {
+            fillUpdate(batch, auditor);
+            for (T model : batch) {
+              MapperMethod.ParamMap<T> param = new MapperMethod.ParamMap<>();
+              param.put(ENTITY_PARAM, model);
+              session.update(statement, param);
+            }
+          }
+          session.flushStatements();
+          count++;
+        }
+      }
+      return count;
+    });
+    BulkWriteResult result = new BulkWriteResult(models.size(), batches,
+      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    log.info("Bulk {} {} rows of {} in {} batches, {} ms, {} rows/s", sqlMethod.getMethod(), result.getRows(),
+      modelClass.getSimpleName(), batches, result.getElapsedMillis(), result.getRowsPerSecond());
+    return result;
+  }
+
+  private static <T extends BaseModel<T>> void fillInsert(List<T> batch, IdGenerator idGenerator, String auditor) {
+    int absent = 0;
+    for (T model : batch) {
+      if (model.getId() == null) {
+        absent++;
+      }
+    }
+    long[] ids = absent > 0 ? idGenerator.nextLongs(absent) : null;
+    ZonedDateTime now = ZonedDateTime.now();
+    int next = 0;
+    for (T model : batch) {
+      if (model.getId() == null) {
+        model.setId(Long.toString(ids[next++]));
+      }
+      model.setCreatedAt(now);
+      model.setUpdatedAt(now);
+      if (auditor != null) {
+        model.setCreatedBy(auditor);
+        model.setUpdatedBy(auditor);
+      }
+    }
+  }
+
+  private static <T extends BaseModel<T>> void fillUpdate(List<T> batch, String auditor) {
+    ZonedDateTime now = ZonedDateTime.now();
+    for (T model : batch) {
+      model.setUpdatedAt(now);
+      if (auditor != null) {
+        model.setUpdatedBy(auditor);
+      }
+    }
+  }
+}
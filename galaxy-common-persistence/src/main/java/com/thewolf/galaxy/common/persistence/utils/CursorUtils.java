@@ -0,0 +1,106 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.persistence.utils;
+
+import com.baomidou.mybatisplus.enums.SqlMethod;
+import com.baomidou.mybatisplus.mapper.SqlHelper;
+import com.baomidou.mybatisplus.mapper.Wrapper;
+import com.baomidou.mybatisplus.toolkit.GlobalConfigUtils;
+import com.thewolf.galaxy.common.core.support.RowSource;
+import com.thewolf.galaxy.common.persistence.plugin.FetchSizeInterceptor;
+import lombok.AllArgsConstructor;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Cursor utils, rows are streamed from the driver one at a time while iterating instead of materialized as a list.
+ * The returned {@code RowSource} holds a connection until closed, joining the transaction of the caller if any, which
+ * then can not run other statements before the rows are closed.
+ */
+public class CursorUtils {
+
+  private static final String WRAPPER_PARAM = "ew";
+
+  private static final String FIRST_PARAM = "param1";
+
+  private CursorUtils() {
+  }
+
+  /**
+   * Open cursor over models matching wrapper.
+   *
+   * @param modelClass model class.
+   * @param wrapper    query wrapper, null selects all.
+   * @param <T>        model type.
+   * @return opened rows.
+   */
+  public static <T> RowSource<T> open(Class<T> modelClass, Wrapper<T> wrapper) {
+    MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+    param.put(WRAPPER_PARAM, wrapper);
+    param.put(FIRST_PARAM, wrapper);
+    return open(modelClass, SqlHelper.table(modelClass).getSqlStatement(SqlMethod.SELECT_LIST.getMethod()), param);
+  }
+
+  /**
+   * Open cursor over rows of mapped statement.
+   *
+   * @param modelClass model class, selects the session factory.
+   * @param statement  mapped statement id.
+   * @param parameter  statement parameter.
+   * @param <T>        row type.
+   * @return opened rows.
+   */
+  public static <T> RowSource<T> open(Class<?> modelClass, String statement, Object parameter) {
+    SqlSession session = GlobalConfigUtils.currentSessionFactory(modelClass).openSession();
+    try {
+      Cursor<T> cursor = FetchSizeInterceptor.withFetchSize(FetchSizeInterceptor.STREAMING,
+        () -> session.selectCursor(statement, parameter));
+      return new CursorRowSource<>(session, cursor);
+    } catch (RuntimeException e) {
+      session.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Rows of cursor, closing the session with it.
+   */
+  @AllArgsConstructor
+  private static class CursorRowSource<T> implements RowSource<T> {
+
+    private final SqlSession session;
+
+    private final Cursor<T> cursor;
+
+    @Override
+    public Iterator<T> iterator() {
+      return cursor.iterator();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        cursor.close();
+      } finally {
+        session.close();
+      }
+    }
+  }
+}
@@ -15,26 +15,128 @@
  */
 package com.thewolf.galaxy.common.persistence.utils;
 
+import com.baomidou.mybatisplus.mapper.BaseMapper;
+import com.baomidou.mybatisplus.mapper.EntityWrapper;
+import com.baomidou.mybatisplus.mapper.Wrapper;
 import com.baomidou.mybatisplus.plugins.Page;
+import com.google.common.collect.Lists;
+import com.thewolf.galaxy.common.core.support.KeysetCursor;
+import com.thewolf.galaxy.common.core.support.KeysetPaginatedResult;
 import com.thewolf.galaxy.common.core.support.PaginatedResult;
+import com.thewolf.galaxy.common.persistence.model.BaseModel;
+import com.thewolf.galaxy.common.persistence.plugin.CountingPage;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Pagination utils.
  */
 public class PaginationUtils {
 
+  private static final String ID_COLUMN = "id";
+
   private PaginationUtils() {
   }
 
   /**
-   * Generated {@code PaginatedResult} from {@code Page}.
+   * Generated {@code PaginatedResult} from {@code Page}, estimated totals of {@code CountingPage} are flagged
+   * approximate.
    *
    * @param page mybatis page.
    * @param <T>  record type.
    * @return an instance of {@PaginatedResult}.
    */
   public static <T> PaginatedResult<T> fromPage(Page<T> page) {
-    return new PaginatedResult<>(page.getCurrent(), page.getSize(), Long.valueOf(page.getTotal()), page.getRecords());
+    PaginatedResult<T> result = new PaginatedResult<>(page.getCurrent(), page.getSize(),
+      Long.valueOf(page.getTotal()), page.getRecords());
+    if (page instanceof CountingPage && ((CountingPage<T>) page).isApproximate()) {
+      result.setApproximate(true);
+    }
+    return result;
+  }
+
+  /**
+   * Select a keyset page ordered by id, see {@link #seek(BaseMapper, Wrapper, String, Function, String, int)}.
+   *
+   * @param mapper  mybatis mapper.
+   * @param wrapper query conditions without ordering or last, could be null.
+   * @param cursor  cursor of previous result, null for the first page.
+   * @param size    page size.
+   * @param <T>     record type.
+   * @return an instance of {@code KeysetPaginatedResult}.
+   */
+  public static <T extends BaseModel<T>> KeysetPaginatedResult<T> seek(BaseMapper<T> mapper, Wrapper<T> wrapper,
+                                                                       String cursor, int size) {
+    return seek(mapper, wrapper, ID_COLUMN, BaseModel::getId, cursor, size);
+  }
+
+  /**
+   * Select a keyset page ordered by a unique key. Rows are located by an index range scan starting at the cursor
+   * key, so the cost does not grow with page depth and no count query is issued.
+   *
+   * @param mapper    mybatis mapper.
+   * @param wrapper   query conditions without ordering or last, could be null, the key range is appended to it as a
+   *                  separate {@code AND} group.
+   * @param keyColumn column of the unique key.
+   * @param keyOf     key of a record.
+   * @param cursor    cursor of previous result, null for the first page.
+   * @param size      page size.
+   * @param <T>       record type.
+   * @return an instance of {@code KeysetPaginatedResult}.
+   * @throws IllegalArgumentException if cursor is malformed or wrapper carries ordering or last.
+   */
+  public static <T> KeysetPaginatedResult<T> seek(BaseMapper<T> mapper, Wrapper<T> wrapper, String keyColumn,
+                                                  Function<T, String> keyOf, String cursor, int size) {
+    checkArgument(size > 0, "size must be positive");
+    KeysetCursor position = cursor != null ? KeysetCursor.decode(cursor) : null;
+    boolean forward = position == null || position.isForward();
+    Wrapper<T> query = wrapper != null ? wrapper : new EntityWrapper<>();
+    checkUnordered(query);
+    if (position != null) {
+      // grouped, otherwise the range only binds to the last OR branch of the conditions
+      if (forward) {
+        query.andNew().gt(keyColumn, position.getKey());
+      } else {
+        query.andNew().lt(keyColumn, position.getKey());
+      }
+    }
+    query.orderBy(keyColumn, forward).last("LIMIT " + (size + 1));
+    List<T> records = mapper.selectList(query);
+    boolean hasMore = records.size() > size;
+    if (hasMore) {
+      records = records.subList(0, size);
+    }
+    if (!forward) {
+      records = Lists.reverse(records);
+    }
+    if (records.isEmpty()) {
+      // past either end the cursor key still leads back to the rows passed over
+      if (position == null) {
+        return new KeysetPaginatedResult<>(size, null, null, records);
+      }
+      String next = forward ? null : new KeysetCursor(position.getKey(), true).encode();
+      String prev = forward ? new KeysetCursor(position.getKey(), false).encode() : null;
+      return new KeysetPaginatedResult<>(size, next, prev, records);
+    }
+    String first = keyOf.apply(records.get(0));
+    String last = keyOf.apply(records.get(records.size() - 1));
+    // moving forward there are rows before the cursor, moving backward there are rows after it
+    String next = !forward || hasMore ? new KeysetCursor(last, true).encode() : null;
+    String prev = forward && position == null || !forward && !hasMore ? null : new KeysetCursor(first, false).encode();
+    return new KeysetPaginatedResult<>(size, next, prev, Lists.newArrayList(records));
+  }
+
+  private static void checkUnordered(Wrapper<?> wrapper) {
+    MetaObject condition = SystemMetaObject.forObject(wrapper);
+    Collection<?> orderBy = (Collection<?>) condition.getValue("sql.sql.orderBy");
+    checkArgument(orderBy == null || orderBy.isEmpty(), "wrapper must not be ordered, rows are ordered by the key");
+    checkArgument(condition.getValue("sql.sql.last") == null, "wrapper must not have last, the limit is appended");
   }
 
 }
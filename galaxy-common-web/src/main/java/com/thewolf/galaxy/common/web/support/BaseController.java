@@ -15,11 +15,15 @@
  */
 package com.thewolf.galaxy.common.web.support;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thewolf.galaxy.common.core.support.RowSource;
+import com.thewolf.galaxy.common.core.utils.SpringContextUtils;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -32,6 +36,8 @@ import java.nio.file.Paths;
  */
 public abstract class BaseController {
 
+  private RowStreamWriter rowStreamWriter;
+
   /**
    * Send file as attachment.
    *
@@ -111,4 +117,35 @@ public abstract class BaseController {
     return ResponseEntity.ok().headers(headers).body(new InputStreamResource(inputStream));
   }
 
+  /**
+   * Stream rows to response and close them, memory stays bounded whatever the row count of a streaming source.
+   *
+   * @param response servlet response.
+   * @param rows     rows to send, such as an opened database cursor.
+   * @param format   export format.
+   * @param fileName attachment file name, null to send inline.
+   * @param <T>      row type.
+   * @throws IOException if an I/O error occurs writing to the response or closing rows.
+   */
+  protected <T> void export(HttpServletResponse response, RowSource<T> rows, ExportFormat format, String fileName)
+    throws IOException {
+    try (RowSource<T> source = rows) {
+      response.setContentType(format.getContentType());
+      response.setCharacterEncoding("UTF-8");
+      if (fileName != null) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", fileName);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, headers.getFirst(HttpHeaders.CONTENT_DISPOSITION));
+      }
+      checkRowStreamWriter().write(source, format, response.getOutputStream());
+    }
+  }
+
+  private RowStreamWriter checkRowStreamWriter() {
+    if (rowStreamWriter == null) {
+      rowStreamWriter = new RowStreamWriter(SpringContextUtils.getBean(ObjectMapper.class));
+    }
+    return rowStreamWriter;
+  }
+
 }
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.web.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Formats of streamed exports.
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+  /**
+   * One json object per line.
+   */
+  NDJSON("application/x-ndjson", "ndjson"),
+  /**
+   * Comma separated values with a header line, nested values are written as json.
+   */
+  CSV("text/csv", "csv"),
+  /**
+   * Single json array.
+   */
+  JSON("application/json", "json");
+
+  private final String contentType;
+
+  private final String extension;
+}
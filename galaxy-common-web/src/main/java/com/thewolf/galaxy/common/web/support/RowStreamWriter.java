@@ -0,0 +1,168 @@
+/**
+ * Copyright 2017 thewolf
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thewolf.galaxy.common.web.support;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes rows to a stream one at a time, the next row is read only after the previous one was buffered, so a slow
+ * reader blocks the row source instead of growing memory.
+ */
+public class RowStreamWriter {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final char NEW_LINE = '\n';
+
+  private static final String CSV_LINE_END = "\r\n";
+
+  private static final char CSV_SEPARATOR = ',';
+
+  private static final char CSV_QUOTE = '"';
+
+  private final ObjectMapper objectMapper;
+
+  private final ObjectWriter rowWriter;
+
+  private final ObjectMapper csvMapper;
+
+  /**
+   * Constructor.
+   *
+   * @param objectMapper object mapper serializing rows.
+   */
+  public RowStreamWriter(ObjectMapper objectMapper) {
+    this.objectMapper = checkNotNull(objectMapper);
+    this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.csvMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.ALWAYS);
+  }
+
+  /**
+   * Write rows to stream, the stream is flushed but not closed.
+   *
+   * @param rows   rows to write.
+   * @param format export format.
+   * @param out    output stream.
+   * @param <T>    row type.
+   * @return number of rows written.
+   * @throws IOException if an I/O error occurs writing to the stream.
+   */
+  public <T> long write(Iterable<T> rows, ExportFormat format, OutputStream out) throws IOException {
+    switch (format) {
+      case NDJSON:
+        return writeJson(rows, out, false);
+      case JSON:
+        return writeJson(rows, out, true);
+      case CSV:
+        return writeCsv(rows, out);
+      default:
+        throw new IllegalArgumentException("Unsupported export format " + format);
+    }
+  }
+
+  private <T> long writeJson(Iterable<T> rows, OutputStream out, boolean array) throws IOException {
+    long count = 0;
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.setRootValueSeparator(null);
+    if (array) {
+      generator.writeStartArray();
+    }
+    for (T row : rows) {
+      rowWriter.writeValue(generator, row);
+      if (!array) {
+        generator.writeRaw(NEW_LINE);
+      }
+      count++;
+    }
+    if (array) {
+      generator.writeEndArray();
+    }
+    generator.close();
+    out.flush();
+    return count;
+  }
+
+  private <T> long writeCsv(Iterable<T> rows, OutputStream out) throws IOException {
+    long count = 0;
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, Charsets.UTF_8), BUFFER_SIZE);
+    List<String> columns = null;
+    for (T row : rows) {
+      JsonNode node = csvMapper.valueToTree(row);
+      checkArgument(node.isObject(), "csv rows must be serialized as objects");
+      if (columns == null) {
+        columns = Lists.newArrayList(node.fieldNames());
+        for (int i = 0; i < columns.size(); i++) {
+          writeCsvCell(writer, columns.get(i), i);
+        }
+        writer.write(CSV_LINE_END);
+      }
+      for (int i = 0; i < columns.size(); i++) {
+        JsonNode value = node.get(columns.get(i));
+        if (value == null || value.isNull()) {
+          writeCsvCell(writer, "", i);
+        } else {
+          writeCsvCell(writer, value.isValueNode() ? value.asText() : value.toString(), i);
+        }
+      }
+      writer.write(CSV_LINE_END);
+      count++;
+    }
+    writer.flush();
+    return count;
+  }
+
+  private static void writeCsvCell(Writer writer, String value, int index) throws IOException {
+    if (index > 0) {
+      writer.write(CSV_SEPARATOR);
+    }
+    boolean quoted = false;
+    for (int i = 0; i < value.length() && !quoted; i++) {
+      char c = value.charAt(i);
+      quoted = c == CSV_SEPARATOR || c == CSV_QUOTE || c == NEW_LINE || c == '\r';
+    }
+    if (!quoted) {
+      writer.write(value);
+      return;
+    }
+    writer.write(CSV_QUOTE);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == CSV_QUOTE) {
+        writer.write(CSV_QUOTE);
+      }
+      writer.write(c);
+    }
+    writer.write(CSV_QUOTE);
+  }
+}
@@ -0,0 +1,15 @@
+# Authorization decisions recorded by galaxy-auth when shiro.audit.sink is jdbc.
+
+CREATE TABLE sys_auth_audit(
+id BIGINT NOT NULL AUTO_INCREMENT,
+decided_at DATETIME(3) NOT NULL,
+source VARCHAR(32) NOT NULL,
+user_id VARCHAR(64) NULL,
+resource VARCHAR(255) NOT NULL,
+requirement VARCHAR(255) NULL,
+allowed BOOLEAN NOT NULL,
+PRIMARY KEY (id))
+ENGINE=InnoDB;
+
+CREATE INDEX IDX_SYS_AUTH_AUDIT_DECIDED_AT ON sys_auth_audit(decided_at);
+CREATE INDEX IDX_SYS_AUTH_AUDIT_USER_ID ON sys_auth_audit(user_id, decided_at);
@@ -0,0 +1,8 @@
+# Worker id leases of the snowflake id generator, see id-generator.* properties.
+
+CREATE TABLE sys_worker_node(
+worker_id INT NOT NULL,
+owner VARCHAR(128) NOT NULL,
+expires_at BIGINT NOT NULL,
+PRIMARY KEY (worker_id))
+ENGINE=InnoDB;
@@ -15,9 +15,8 @@
  */
 package com.thewolf.galaxy.sys.support;
 
-import com.thewolf.galaxy.auth.support.AuthenticatingUser;
+import com.thewolf.galaxy.auth.support.SecurityContext;
 import com.thewolf.galaxy.common.persistence.plugin.AuditorAware;
-import org.apache.shiro.SecurityUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -27,9 +26,6 @@ import org.springframework.stereotype.Component;
 public class ShiroAuditorAware implements AuditorAware {
   @Override
   public String getCurrentAuditor() {
-    if (SecurityUtils.getSubject().isAuthenticated()) {
-      return ((AuthenticatingUser) SecurityUtils.getSubject().getPrincipal()).getId();
-    }
-    return null;
+    return SecurityContext.current().getUserId();
   }
 }